@@ -0,0 +1,28 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the selected benchmarks once per thread count, e.g.
+// java -Dthreads=1,4,16 -DcatalogSize=1000,1000000 -cp benchmarks/target/benchmarks.jar \
+//     org.stefanneuberger.benchmarks.BenchmarkRunner Warehouse
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        String[] threadCounts = System.getProperty("threads", "1,2,4,8").split(",");
+        String catalogSizes = System.getProperty("catalogSize");
+
+        for (String threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(threads.trim()));
+            if (catalogSizes != null) {
+                options.param("catalogSize", catalogSizes.split(","));
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
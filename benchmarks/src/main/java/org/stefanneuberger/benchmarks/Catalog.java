@@ -0,0 +1,32 @@
+package org.stefanneuberger.benchmarks;
+
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+final class Catalog {
+
+    private Catalog() {
+    }
+
+    static List<Product> products(int size) {
+        List<Product> products = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            products.add(new Product(id, "Product " + id, BigDecimal.valueOf(100 + id % 9_900, 2)));
+        }
+        return products;
+    }
+
+    // pre-drawn product ids so the benchmark loop does not measure the random generator
+    static int[] randomIds(int catalogSize, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = random.nextInt(catalogSize) + 1;
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,85 @@
+package org.stefanneuberger.benchmarks;
+
+import org.stefanneuberger.importer.CatalogImporter;
+import org.stefanneuberger.importer.ImportStats;
+import org.stefanneuberger.productRepo.ProductRepo;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+// Generates a CSV feed of the given size, imports it, converts it to the binary format and imports that.
+// The target repository and warehouse hold every product, so give the JVM enough heap for the row count.
+//
+// java -Xmx8g -cp benchmarks/target/benchmarks.jar org.stefanneuberger.benchmarks.CatalogImportLoadTest \
+//     --rows 10000000 [--dir /tmp]
+public class CatalogImportLoadTest {
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = options(args);
+        int rows = Integer.parseInt(options.getOrDefault("rows", "1000000"));
+        Path directory = Files.createTempDirectory(Path.of(options.getOrDefault("dir",
+                System.getProperty("java.io.tmpdir"))), "catalog-import");
+        Path csv = directory.resolve("catalog.csv");
+        Path binary = directory.resolve("catalog.bin");
+        try {
+            writeCsv(csv, rows);
+            System.out.printf("CSV feed: %d rows, %.1f MB%n", rows, Files.size(csv) / 1e6);
+
+            long expected = CatalogImporter.estimateRows(csv);
+            ProductRepo products = new ProductRepo((int) expected);
+            Warehouse warehouse = new Warehouse(1, "Import Warehouse", (int) expected);
+            ImportStats csvStats = new CatalogImporter(products, warehouse).importCsv(csv);
+            System.out.println("CSV:    " + csvStats);
+
+            CatalogImporter.writeBinary(binary, products.getProducts(), warehouse);
+            products = null;
+            warehouse = null;
+            System.gc();
+
+            expected = CatalogImporter.estimateRows(binary);
+            ProductRepo binaryProducts = new ProductRepo((int) expected);
+            Warehouse binaryWarehouse = new Warehouse(1, "Import Warehouse", (int) expected);
+            ImportStats binaryStats = new CatalogImporter(binaryProducts, binaryWarehouse).importBinary(binary);
+            System.out.println("Binary: " + binaryStats);
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(binary);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void writeCsv(Path file, int rows) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("id,name,price,stock\n");
+            for (int id = 1; id <= rows; id++) {
+                writer.write(Integer.toString(id));
+                writer.write(",Product ");
+                writer.write(Integer.toString(id));
+                writer.write(',');
+                writer.write(Integer.toString(id % 10_000));
+                writer.write('.');
+                writer.write(Integer.toString(10 + id % 90));
+                writer.write(',');
+                writer.write(Integer.toString(id % 500));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                String name = args[i].substring(2);
+                boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+                options.put(name, hasValue ? args[++i] : "true");
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,32 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepo;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    public List<Product> products;
+    public ProductRepo productRepo;
+    public Warehouse warehouse;
+
+    @Setup
+    public void setUp() {
+        products = Catalog.products(catalogSize);
+        productRepo = new ProductRepo(products);
+        warehouse = new Warehouse(1, "Benchmark Warehouse");
+        for (Product product : products) {
+            warehouse.addProduct(product, Integer.MAX_VALUE);
+        }
+    }
+}
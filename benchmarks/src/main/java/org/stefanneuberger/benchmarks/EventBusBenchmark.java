@@ -0,0 +1,62 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.events.EventBus;
+import org.stefanneuberger.events.ShopEvent;
+
+import java.util.concurrent.TimeUnit;
+
+// what publishing costs the publishing thread, with one subscriber that keeps up and one that never does
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBusBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Bus {
+        EventBus fast;
+        EventBus stalled;
+
+        @Setup
+        public void setUp() {
+            fast = new EventBus();
+            fast.subscribe("noop", (event, endOfBatch) -> { }, 1 << 16);
+            stalled = new EventBus();
+            stalled.subscribe("stalled", (event, endOfBatch) -> {
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 1024);
+        }
+
+        @TearDown
+        public void tearDown() {
+            fast.close();
+            // the stalled subscriber never finishes, its daemon thread ends with the fork
+        }
+    }
+
+    @Benchmark
+    public void publish(Bus bus, KeyStream keys) {
+        bus.fast.publish(new ShopEvent.OrderDeleted(keys.nextId()));
+    }
+
+    @Benchmark
+    public void publishToFullBuffer(Bus bus, KeyStream keys) {
+        bus.stalled.publish(new ShopEvent.OrderDeleted(keys.nextId()));
+    }
+}
@@ -0,0 +1,68 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.persistence.FsyncPolicy;
+import org.stefanneuberger.persistence.LogRecord;
+import org.stefanneuberger.persistence.WriteAheadLog;
+import org.stefanneuberger.productRepo.Product;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Log {
+        @Param({"ALWAYS", "PERIODIC", "NEVER"})
+        public FsyncPolicy fsyncPolicy;
+
+        WriteAheadLog log;
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("wal-benchmark");
+            log = new WriteAheadLog(directory, fsyncPolicy, Duration.ofMillis(2));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            log.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public long appendOrder(Log log, CatalogState catalog, KeyStream keys) {
+        int id = keys.nextId();
+        Product product = catalog.products.get(id - 1);
+        return log.log.append(new LogRecord.OrderAdded(new Order(id, product, 1)));
+    }
+}
@@ -0,0 +1,24 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+
+@State(Scope.Thread)
+public class KeyStream {
+
+    private static final int KEYS = 1 << 16;
+
+    private int[] ids;
+    private int cursor;
+
+    @Setup
+    public void setUp(CatalogState catalog, ThreadParams threadParams) {
+        ids = Catalog.randomIds(catalog.catalogSize, KEYS, 42L + threadParams.getThreadIndex());
+    }
+
+    public int nextId() {
+        return ids[cursor++ & (KEYS - 1)];
+    }
+}
@@ -0,0 +1,56 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.metrics.InstrumentedProductRepo;
+import org.stefanneuberger.metrics.LatencyHistogram;
+import org.stefanneuberger.metrics.Metrics;
+import org.stefanneuberger.productRepo.Product;
+
+import java.util.concurrent.TimeUnit;
+
+// cost of recording one event, compare getProductById here with ProductRepoBenchmark.getProductById
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Instrumented {
+        LatencyHistogram histogram;
+        InstrumentedProductRepo productRepo;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            Metrics metrics = new Metrics();
+            histogram = metrics.timer("benchmark");
+            productRepo = new InstrumentedProductRepo(catalog.productRepo, metrics);
+        }
+    }
+
+    @Benchmark
+    public void recordLatency(Instrumented instrumented, KeyStream keys) {
+        instrumented.histogram.record(keys.nextId());
+    }
+
+    @Benchmark
+    public void timedNanoTime(Instrumented instrumented) {
+        long start = System.nanoTime();
+        instrumented.histogram.record(System.nanoTime() - start);
+    }
+
+    @Benchmark
+    public Product getProductById(Instrumented instrumented, KeyStream keys) {
+        return instrumented.productRepo.getProductById(keys.nextId());
+    }
+}
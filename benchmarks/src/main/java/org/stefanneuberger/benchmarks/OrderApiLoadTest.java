@@ -0,0 +1,140 @@
+package org.stefanneuberger.benchmarks;
+
+import org.stefanneuberger.ShopService.ShopService;
+import org.stefanneuberger.http.ShopHttpServer;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Closed-loop load test for the HTTP order API: every simulated client is a virtual thread that keeps
+// sending requests (mostly product and stock reads, some orders) until the time is up.
+//
+// java -cp benchmarks/target/benchmarks.jar org.stefanneuberger.benchmarks.OrderApiLoadTest \
+//     --embedded --clients 10000 --seconds 30 --products 100000
+// or against a running server: --url http://localhost:8080 --products 6
+public class OrderApiLoadTest {
+
+    private static final int ORDER_PERCENT = 20;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "20"));
+        int products = Integer.parseInt(options.getOrDefault("products", "10000"));
+        String url = options.getOrDefault("url", "http://localhost:8080");
+
+        ShopHttpServer server = null;
+        if (options.containsKey("embedded")) {
+            ShopHttpServer.useTcpNoDelay();
+            server = embeddedServer(products);
+            url = "http://localhost:" + server.getPort();
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        // latency buckets by power of two microseconds
+        AtomicLongArray latency = new AtomicLongArray(40);
+        LongAdder ok = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder failed = new LongAdder();
+
+        System.out.printf("%d clients for %d s against %s (%d products)%n", clients, seconds, url, products);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        String baseUrl = url;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                long seed = c;
+                executor.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    while (System.nanoTime() < deadline) {
+                        int productId = random.nextInt(products) + 1;
+                        HttpRequest request = random.nextInt(100) < ORDER_PERCENT
+                                ? HttpRequest.newBuilder(URI.create(baseUrl + "/orders"))
+                                        .header("Content-Type", "application/x-www-form-urlencoded")
+                                        .POST(HttpRequest.BodyPublishers.ofString("productId=" + productId + "&quantity=1"))
+                                        .build()
+                                : HttpRequest.newBuilder(URI.create(baseUrl + "/stock/" + productId)).GET().build();
+                        long start = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            long micros = Math.max(1, (System.nanoTime() - start) / 1_000);
+                            latency.incrementAndGet(Math.min(39, 63 - Long.numberOfLeadingZeros(micros)));
+                            if (status < 400) {
+                                ok.increment();
+                            } else {
+                                rejected.increment();
+                            }
+                        } catch (Exception e) {
+                            failed.increment();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        long total = ok.sum() + rejected.sum();
+        System.out.printf("requests: %d ok, %d rejected, %d failed%n", ok.sum(), rejected.sum(), failed.sum());
+        System.out.printf("throughput: %.0f requests/s%n", total / (double) seconds);
+        System.out.printf("latency: p50 < %d us, p99 < %d us, p999 < %d us%n",
+                percentile(latency, total, 0.50), percentile(latency, total, 0.99), percentile(latency, total, 0.999));
+
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private static ShopHttpServer embeddedServer(int products) throws Exception {
+        List<Product> catalog = Catalog.products(products);
+        Warehouse warehouse = new Warehouse(1, "Load Test Warehouse");
+        for (Product product : catalog) {
+            warehouse.addProduct(product, Integer.MAX_VALUE);
+        }
+        ShopHttpServer server = new ShopHttpServer(new ShopService(1, "Load Test Shop", warehouse, catalog),
+                new InetSocketAddress("localhost", 0));
+        server.start();
+        return server;
+    }
+
+    // upper bound of the bucket that contains the given fraction of all requests
+    private static long percentile(AtomicLongArray buckets, long total, double fraction) {
+        long threshold = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= threshold) {
+                return 1L << (i + 1);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                String name = args[i].substring(2);
+                boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+                options.put(name, hasValue ? args[++i] : "true");
+            }
+        }
+        return options;
+    }
+}
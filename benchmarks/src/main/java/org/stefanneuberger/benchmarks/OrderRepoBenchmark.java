@@ -0,0 +1,102 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.OrderListRepo.ConcurrentOrderRepo;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.OrderListRepo.OrderListRepo;
+import org.stefanneuberger.OrderListRepo.OrderMapRepo;
+import org.stefanneuberger.productRepo.Product;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderRepoBenchmark {
+
+    // the order repositories are single-threaded, so every benchmark thread gets its own pre-filled copy
+    @State(Scope.Thread)
+    public static class Repos {
+        OrderListRepo listRepo;
+        OrderMapRepo mapRepo;
+        List<Product> products;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            products = catalog.products;
+            listRepo = new OrderListRepo();
+            mapRepo = new OrderMapRepo(new HashMap<>());
+            for (Product product : products) {
+                listRepo.addOrder(product, 1);
+                mapRepo.addOrder(new Order(product.id(), product, 1));
+            }
+        }
+    }
+
+    // one repository shared by all benchmark threads, run with -t to see how it scales
+    @State(Scope.Benchmark)
+    public static class SharedRepo {
+        ConcurrentOrderRepo repo;
+        List<Product> products;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            products = catalog.products;
+            repo = new ConcurrentOrderRepo();
+            for (Product product : products) {
+                repo.addOrder(product, 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public Order orderListRepoAddOrder(Repos repos, KeyStream keys) {
+        return repos.listRepo.addOrder(repos.products.get(keys.nextId() - 1), 2);
+    }
+
+    @Benchmark
+    public Order orderListRepoGetOrderByProductId(Repos repos, KeyStream keys) {
+        return repos.listRepo.getOrderByProductId(keys.nextId());
+    }
+
+    @Benchmark
+    public Order orderMapRepoUpdateOrder(Repos repos, KeyStream keys) {
+        int id = keys.nextId();
+        Order order = new Order(id, repos.products.get(id - 1), 2);
+        repos.mapRepo.updateOrder(order);
+        return order;
+    }
+
+    @Benchmark
+    public Order orderMapRepoGetOrderById(Repos repos, KeyStream keys) {
+        return repos.mapRepo.getOrderById(keys.nextId());
+    }
+
+    @Benchmark
+    public Order orderMapRepoGetOrderByProductId(Repos repos, KeyStream keys) {
+        return repos.mapRepo.getOrderByProductId(keys.nextId());
+    }
+
+    @Benchmark
+    public Order concurrentRepoAddOrder(SharedRepo shared, KeyStream keys) {
+        return shared.repo.addOrder(shared.products.get(keys.nextId() - 1), 2);
+    }
+
+    @Benchmark
+    public Order concurrentRepoGetOrderByProductId(SharedRepo shared, KeyStream keys) {
+        return shared.repo.getOrderByProductId(keys.nextId());
+    }
+}
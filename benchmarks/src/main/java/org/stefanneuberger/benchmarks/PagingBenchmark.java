@@ -0,0 +1,57 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.paging.Page;
+import org.stefanneuberger.paging.PagedProductRepo;
+import org.stefanneuberger.paging.ProductSort;
+import org.stefanneuberger.productRepo.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// one page of 20 products by price, starting after a random product; sortedCopy is what a caller
+// had to do before: copy getProducts(), sort it and cut the page out
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @State(Scope.Benchmark)
+    public static class Paged {
+        PagedProductRepo repo;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            repo = new PagedProductRepo(catalog.productRepo);
+        }
+    }
+
+    @Benchmark
+    public Page<Product> pageByPrice(Paged paged, CatalogState catalog, KeyStream keys) {
+        Product after = catalog.products.get(keys.nextId() - 1);
+        return paged.repo.getPage(ProductSort.PRICE, after, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Product> sortedCopy(CatalogState catalog, KeyStream keys) {
+        Product after = catalog.products.get(keys.nextId() - 1);
+        List<Product> sorted = new ArrayList<>(catalog.productRepo.getProducts());
+        sorted.sort(ProductSort.PRICE.getOrder().thenComparingInt(Product::id));
+        int from = sorted.indexOf(after) + 1;
+        return sorted.subList(from, Math.min(from + PAGE_SIZE, sorted.size()));
+    }
+}
@@ -0,0 +1,150 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.productRepo.CachingProductRepo;
+import org.stefanneuberger.productRepo.MappedProductRepo;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepo;
+import org.stefanneuberger.productRepo.VersionedProductRepo;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductRepoBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class MappedCatalog {
+        MappedProductRepo productRepo;
+        Path file;
+
+        @Setup
+        public void setUp(CatalogState catalog) throws IOException {
+            file = Files.createTempFile("catalog", ".bin");
+            Files.delete(file);
+            productRepo = MappedProductRepo.open(file, catalog.products);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            productRepo.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // cache as large as the catalog and fully loaded, so every read is a hit
+    @State(Scope.Benchmark)
+    public static class WarmCache {
+        CachingProductRepo productRepo;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            productRepo = new CachingProductRepo(catalog.productRepo, catalog.catalogSize);
+            for (Product product : catalog.products) {
+                productRepo.getProductById(product.id());
+            }
+        }
+    }
+
+    // cache for a tenth of the catalog, reads spread evenly so most of them miss and evict
+    @State(Scope.Benchmark)
+    public static class SmallCache {
+        CachingProductRepo productRepo;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            productRepo = new CachingProductRepo(catalog.productRepo, Math.max(1, catalog.catalogSize / 10));
+        }
+    }
+
+    // every product repriced 16 times, one version per simulated hour
+    @State(Scope.Benchmark)
+    public static class PriceHistory {
+        static final int VERSIONS = 16;
+        VersionedProductRepo productRepo;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            SteppingClock clock = new SteppingClock();
+            productRepo = new VersionedProductRepo(new ProductRepo(catalog.products), clock);
+            for (int version = 1; version < VERSIONS; version++) {
+                clock.hours = version;
+                for (Product product : catalog.products) {
+                    productRepo.updateProduct(new Product(product.id(), product.name(),
+                            product.price().add(BigDecimal.valueOf(version, 2))));
+                }
+            }
+        }
+    }
+
+    static final class SteppingClock extends Clock {
+        long hours;
+
+        @Override
+        public long millis() {
+            return hours * 3_600_000;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    @Benchmark
+    public Product getProductById(CatalogState catalog, KeyStream keys) {
+        return catalog.productRepo.getProductById(keys.nextId());
+    }
+
+    @Benchmark
+    public Product mappedGetProductById(MappedCatalog catalog, KeyStream keys) {
+        return catalog.productRepo.getProductById(keys.nextId());
+    }
+
+    @Benchmark
+    public Product cachedHitGetProductById(WarmCache cache, KeyStream keys) {
+        return cache.productRepo.getProductById(keys.nextId());
+    }
+
+    @Benchmark
+    public Product cachedMissGetProductById(SmallCache cache, KeyStream keys) {
+        return cache.productRepo.getProductById(keys.nextId());
+    }
+
+    @Benchmark
+    public BigDecimal versionedGetPriceAsOf(PriceHistory history, KeyStream keys) {
+        int id = keys.nextId();
+        return history.productRepo.getPriceAsOf(id, Instant.ofEpochMilli((id % PriceHistory.VERSIONS) * 3_600_000L + 1));
+    }
+}
@@ -0,0 +1,66 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.analytics.ParallelOrderQueries;
+import org.stefanneuberger.productRepo.Money;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevenueBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Orders {
+        List<Order> orders;
+        ParallelOrderQueries queries = new ParallelOrderQueries();
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            orders = new ArrayList<>(catalog.catalogSize);
+            for (Product product : catalog.products) {
+                orders.add(new Order(product.id(), product, 1 + product.id() % 5));
+            }
+        }
+    }
+
+    @Benchmark
+    public BigDecimal sumTotalPrice(Orders orders) {
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (Order order : orders.orders) {
+            revenue = revenue.add(order.totalPrice());
+        }
+        return revenue;
+    }
+
+    @Benchmark
+    public BigDecimal sumTotalCents(Orders orders) {
+        long revenue = 0;
+        for (Order order : orders.orders) {
+            revenue += order.totalCents();
+        }
+        return Money.fromCents(revenue);
+    }
+
+    @Benchmark
+    public BigDecimal parallelRevenue(Orders orders) {
+        return orders.queries.revenue(orders.orders);
+    }
+}
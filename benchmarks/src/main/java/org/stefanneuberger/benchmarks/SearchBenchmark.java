@@ -0,0 +1,64 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.search.ProductSearchIndex;
+
+import java.util.concurrent.TimeUnit;
+
+// type-ahead queries against the "Product <id>" catalog: every name shares the word "product",
+// the id is a term of its own
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int LIMIT = 10;
+
+    @State(Scope.Benchmark)
+    public static class Index {
+        ProductSearchIndex index;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            index = new ProductSearchIndex();
+            for (Product product : catalog.products) {
+                index.index(product);
+            }
+        }
+    }
+
+    // a short prefix matches most of the catalog
+    @Benchmark
+    public int[] commonPrefix(Index index) {
+        return index.index.search("pro", LIMIT);
+    }
+
+    @Benchmark
+    public int[] idPrefix(Index index, KeyStream keys) {
+        return index.index.search(Integer.toString(keys.nextId() / 10), LIMIT);
+    }
+
+    // a complete common word followed by a selective prefix
+    @Benchmark
+    public int[] wordAndPrefix(Index index, KeyStream keys) {
+        return index.index.search("product " + keys.nextId(), LIMIT);
+    }
+
+    @Benchmark
+    public void reindexProduct(Index index, KeyStream keys) {
+        int id = keys.nextId();
+        index.index.index(new Product(id, "Product " + id, null));
+    }
+}
@@ -0,0 +1,59 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.ShopService.ShardedShopService;
+import org.stefanneuberger.productRepo.Product;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// order throughput of the sharded engine, run with -t <threads> to see it scale with the shard count
+// (ShopServiceBenchmark.createOrder is the unsharded baseline)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedShopBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Sharded {
+        @Param({"1", "4"})
+        public int shardCount;
+
+        ShardedShopService shop;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            shop = new ShardedShopService(shardCount);
+            CompletableFuture<?>[] added = new CompletableFuture[catalog.products.size()];
+            for (int i = 0; i < added.length; i++) {
+                added[i] = shop.addProduct(catalog.products.get(i), Integer.MAX_VALUE);
+            }
+            CompletableFuture.allOf(added).join();
+        }
+
+        @TearDown
+        public void tearDown() {
+            shop.close();
+        }
+    }
+
+    @Benchmark
+    public Order createOrder(CatalogState catalog, Sharded sharded, KeyStream keys) {
+        Product product = catalog.products.get(keys.nextId() - 1);
+        return sharded.shop.createOrder(product, 1).join();
+    }
+}
@@ -0,0 +1,86 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.ShopService.IdempotentOrderService;
+import org.stefanneuberger.ShopService.OrderLine;
+import org.stefanneuberger.ShopService.ShopService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShopServiceBenchmark {
+
+    static final int CART_LINES = 100;
+
+    // one shop per thread (its order list is single-threaded), all of them selling from the shared warehouse
+    @State(Scope.Thread)
+    public static class Shop {
+        ShopService shopService;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            shopService = new ShopService(1, "Benchmark Shop", catalog.warehouse, catalog.products);
+        }
+    }
+
+    // keys that were already used once, every call is a retry answered from the dedup table
+    @State(Scope.Thread)
+    public static class Replays {
+        static final int KEYS = 1 << 10;
+
+        IdempotentOrderService orders;
+        String[] keys = new String[KEYS];
+        Order[] firstOrders = new Order[KEYS];
+        int cursor;
+
+        @Setup
+        public void setUp(CatalogState catalog, Shop shop) {
+            orders = new IdempotentOrderService(shop.shopService, Duration.ofHours(1), 1 << 16);
+            for (int i = 0; i < KEYS; i++) {
+                keys[i] = UUID.randomUUID().toString();
+                firstOrders[i] = orders.createOrder(keys[i], catalog.products.get(i % catalog.products.size()), 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public Order idempotentReplay(Replays replays) {
+        int i = replays.cursor++ & (Replays.KEYS - 1);
+        Order first = replays.firstOrders[i];
+        return replays.orders.createOrder(replays.keys[i], first.product(), first.quantity());
+    }
+
+    @Benchmark
+    public Order createOrder(CatalogState catalog, Shop shop, KeyStream keys) {
+        return shop.shopService.createOrder(catalog.products.get(keys.nextId() - 1), 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CART_LINES)
+    public List<Order> createOrdersBatch(CatalogState catalog, Shop shop, KeyStream keys) {
+        List<OrderLine> lines = new ArrayList<>(CART_LINES);
+        for (int i = 0; i < CART_LINES; i++) {
+            lines.add(new OrderLine(catalog.products.get(keys.nextId() - 1), 1));
+        }
+        return shop.shopService.createOrders(lines);
+    }
+}
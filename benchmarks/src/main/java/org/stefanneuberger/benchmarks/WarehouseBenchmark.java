@@ -0,0 +1,81 @@
+package org.stefanneuberger.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.warehouse.Allocation;
+import org.stefanneuberger.warehouse.AllocationPolicy;
+import org.stefanneuberger.warehouse.StockReservations;
+import org.stefanneuberger.warehouse.Warehouse;
+import org.stefanneuberger.warehouse.WarehouseRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarehouseBenchmark {
+
+    // the warehouse is shared between all benchmark threads to measure contention
+    @Benchmark
+    public boolean decreaseStock(CatalogState catalog, KeyStream keys) {
+        return catalog.warehouse.decreaseStock(keys.nextId(), 1);
+    }
+
+    @Benchmark
+    public int getStockLevel(CatalogState catalog, KeyStream keys) {
+        return catalog.warehouse.getStockLevel(keys.nextId());
+    }
+
+    // routing over four warehouses through the availability index
+    @Benchmark
+    public List<Allocation> registryAllocate(Registry registry, KeyStream keys) {
+        return registry.registry.tryAllocate(keys.nextId(), 1);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Registry {
+        WarehouseRegistry registry;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            registry = new WarehouseRegistry(AllocationPolicy.mostStock());
+            for (int w = 1; w <= 4; w++) {
+                Warehouse warehouse = new Warehouse(w, "Benchmark Warehouse " + w);
+                for (Product product : catalog.products) {
+                    warehouse.addProduct(product, Integer.MAX_VALUE);
+                }
+                registry.register(warehouse);
+            }
+        }
+    }
+
+    // a cart hold that is given back right away, exercises the timer wheel link and unlink
+    @Benchmark
+    public boolean reserveAndCancel(Reservations reservations, KeyStream keys) {
+        StockReservations holds = reservations.reservations;
+        return holds.cancel(holds.reserve(keys.nextId(), 1, Duration.ofMinutes(15)));
+    }
+
+    @State(Scope.Benchmark)
+    public static class Reservations {
+        StockReservations reservations;
+
+        @Setup
+        public void setUp(CatalogState catalog) {
+            reservations = new StockReservations(catalog.warehouse);
+        }
+    }
+}
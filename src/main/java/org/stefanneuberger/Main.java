@@ -1,15 +1,38 @@
 package org.stefanneuberger;
 
+import org.stefanneuberger.OrderListRepo.ConcurrentOrderRepo;
 import org.stefanneuberger.ShopService.ShopService;
+import org.stefanneuberger.http.ShopHttpServer;
 import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.search.SearchableProductRepo;
 import org.stefanneuberger.warehouse.Warehouse;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        ShopService shop = createSampleShop();
+
+        // "http [port]" serves the shop over HTTP instead of starting the CLI
+        if (args.length > 0 && "http".equals(args[0])) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            ShopHttpServer.useTcpNoDelay();
+            ShopHttpServer server = new ShopHttpServer(shop, new InetSocketAddress(port));
+            server.start();
+            System.out.println("Serving " + shop.getShopName() + " on http://localhost:" + server.getPort());
+            return;
+        }
+
+        // Start the CLI demo
+        ShopCLI shopCLI = new ShopCLI(shop);
+        shopCLI.start();
+    }
+
+    static ShopService createSampleShop() {
         // Create some sample products
         List<Product> products = new ArrayList<>();
         products.add(new Product(1, "Wireless Mouse", new BigDecimal("29.99")));
@@ -28,11 +51,10 @@ public class Main {
         warehouse.addProduct(products.get(4), 40); 
         warehouse.addProduct(products.get(5), 0);
         
-        // Create a shop service with warehouse integration
+        // Create a shop service with warehouse integration, its orders may be created from many threads
         ShopService shop = new ShopService(1, "Tech Store", warehouse, products);
-        
-        // Start the CLI demo
-        ShopCLI shopCLI = new ShopCLI(shop);
-        shopCLI.start();
+        shop.setOrderRepo(new ConcurrentOrderRepo());
+        shop.setProductRepo(new SearchableProductRepo(shop.getProductRepo()));
+        return shop;
     }
 }
@@ -0,0 +1,284 @@
+package org.stefanneuberger.OrderListRepo;
+
+import org.stefanneuberger.productRepo.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Thread-safe OrderRepoSpec with the same upsert rules as OrderListRepo: at most one order per product,
+// and an order replaces the one with the same id and the one for the same product.
+// Reads are plain ConcurrentHashMap lookups. Writes take the stripe lock of the product they touch (both
+// stripes, in stripe order, when an id moves to another product), so writes for different products run in
+// parallel. Listeners are notified while the lock is held, so the events of one product arrive in the order
+// the writes were applied, like the stock events of Warehouse. They must be quick and must not throw: slow
+// work (e.g. waiting for a disk write) belongs in orderLockReleased(), which runs after the unlock. A listener
+// that throws anyway does not keep the others from being notified; the write stays applied and the first
+// exception is rethrown to the writer once the locks are released.
+// getOrders() hands out an immutable snapshot sorted by id that is only rebuilt after a write,
+// iterator() walks the live orders without copying them.
+public class ConcurrentOrderRepo implements OrderRepoSpec, Iterable<Order> {
+
+    private static final int STRIPES = 64;
+
+    private final ConcurrentHashMap<Integer, Order> orders = new ConcurrentHashMap<>();
+    // product id -> the order for that product
+    private final ConcurrentHashMap<Integer, Order> ordersByProduct = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final AtomicInteger maxId = new AtomicInteger();
+    private final List<OrderListener> listeners = new CopyOnWriteArrayList<>();
+    // counts writes; striped so writers on different cores do not contend on it
+    private final LongAdder modifications = new LongAdder();
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(long modifications, List<Order> orders) {
+    }
+
+    public ConcurrentOrderRepo() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public ConcurrentOrderRepo(List<Order> orders) {
+        this();
+        for (Order order : orders) {
+            put(order);
+        }
+    }
+
+    public int getNextId() {
+        return maxId.get() + 1;
+    }
+
+    @Override
+    public Order addOrder(Product product, int quantity) {
+        Order order = new Order(maxId.incrementAndGet(), product, quantity);
+        put(order);
+        return order;
+    }
+
+    @Override
+    public void addOrder(Order order) {
+        put(order);
+    }
+
+    @Override
+    public void removeAllOrders() {
+        RuntimeException failure = null;
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            orders.clear();
+            ordersByProduct.clear();
+            maxId.set(0);
+            modifications.increment();
+            for (OrderListener listener : listeners) {
+                try {
+                    listener.ordersCleared();
+                } catch (RuntimeException e) {
+                    failure = failed(failure, e);
+                }
+            }
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+        fireLockReleased(failure);
+    }
+
+    @Override
+    public void removeOrderById(int id) {
+        RuntimeException failure;
+        while (true) {
+            Order current = orders.get(id);
+            if (current == null) {
+                return;
+            }
+            ReentrantLock lock = locks[stripe(current.product().id())];
+            lock.lock();
+            try {
+                // a write for another product may have taken the id meanwhile, then look again
+                if (!orders.remove(id, current)) {
+                    continue;
+                }
+                ordersByProduct.remove(current.product().id(), current);
+                modifications.increment();
+                failure = fireRemoved(current, null);
+            } finally {
+                lock.unlock();
+            }
+            fireLockReleased(failure);
+            return;
+        }
+    }
+
+    @Override
+    public void updateOrder(Order order) {
+        put(order);
+    }
+
+    @Override
+    public Order getOrderById(int id) {
+        return orders.get(id);
+    }
+
+    @Override
+    public Order getOrderByProductId(int productId) {
+        Order order = ordersByProduct.get(productId);
+        // the index may briefly point at an order that a concurrent write just replaced by id
+        return order != null && orders.get(order.id()) == order ? order : null;
+    }
+
+    @Override
+    public List<Order> getOrders() {
+        Snapshot current = snapshot;
+        long seen = modifications.sum();
+        if (current != null && current.modifications() == seen) {
+            return current.orders();
+        }
+        List<Order> sorted = new ArrayList<>(orders.values());
+        sorted.sort(Comparator.comparingInt(Order::id));
+        List<Order> result = List.copyOf(sorted);
+        // a write that finished while copying changed the count, then the next call rebuilds again
+        snapshot = new Snapshot(seen, result);
+        return result;
+    }
+
+    // weakly consistent view of the live orders in no particular order, nothing is copied
+    @Override
+    public Iterator<Order> iterator() {
+        return orders.values().iterator();
+    }
+
+    public int size() {
+        return orders.size();
+    }
+
+    @Override
+    public void addOrderListener(OrderListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeOrderListener(OrderListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void put(Order order) {
+        maxId.accumulateAndGet(order.id(), Math::max);
+        int productId = order.product().id();
+        RuntimeException failure = null;
+        while (true) {
+            Order sameId = orders.get(order.id());
+            int first = stripe(productId);
+            int second = sameId == null ? first : stripe(sameId.product().id());
+            lockBoth(first, second);
+            try {
+                // the order with this id belongs to a product whose lock is held, unless a write for another
+                // product replaced it before the locks were taken
+                if (orders.get(order.id()) != sameId) {
+                    continue;
+                }
+                List<Order> removed = new ArrayList<>(2);
+                Order sameProduct = ordersByProduct.get(productId);
+                if (sameProduct != null && sameProduct.id() != order.id() && orders.remove(sameProduct.id(), sameProduct)) {
+                    removed.add(sameProduct);
+                }
+                orders.put(order.id(), order);
+                ordersByProduct.put(productId, order);
+                if (sameId != null) {
+                    removed.add(sameId);
+                    // an order with the same id that belonged to another product leaves that product's index
+                    if (sameId.product().id() != productId) {
+                        ordersByProduct.remove(sameId.product().id(), sameId);
+                    }
+                }
+                modifications.increment();
+                for (Order old : removed) {
+                    failure = fireRemoved(old, failure);
+                }
+                for (OrderListener listener : listeners) {
+                    try {
+                        listener.orderAdded(order);
+                    } catch (RuntimeException e) {
+                        failure = failed(failure, e);
+                    }
+                }
+            } finally {
+                unlockBoth(first, second);
+            }
+            fireLockReleased(failure);
+            return;
+        }
+    }
+
+    // always in stripe order, so two writes that each need two stripes cannot deadlock
+    private void lockBoth(int first, int second) {
+        locks[Math.min(first, second)].lock();
+        if (first != second) {
+            locks[Math.max(first, second)].lock();
+        }
+    }
+
+    private void unlockBoth(int first, int second) {
+        if (first != second) {
+            locks[Math.max(first, second)].unlock();
+        }
+        locks[Math.min(first, second)].unlock();
+    }
+
+    private static int stripe(int productId) {
+        // spread the bits so consecutive product ids land on different stripes
+        int h = productId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private RuntimeException fireRemoved(Order order, RuntimeException failure) {
+        for (OrderListener listener : listeners) {
+            try {
+                listener.orderRemoved(order);
+            } catch (RuntimeException e) {
+                failure = failed(failure, e);
+            }
+        }
+        return failure;
+    }
+
+    // no lock is held anymore, the first listener failure of the write is rethrown here
+    private void fireLockReleased(RuntimeException failure) {
+        for (OrderListener listener : listeners) {
+            try {
+                listener.orderLockReleased();
+            } catch (RuntimeException e) {
+                failure = failed(failure, e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static RuntimeException failed(RuntimeException failure, RuntimeException e) {
+        if (failure == null) {
+            return e;
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentOrderRepo{" +
+                "orders=" + getOrders() +
+                '}';
+    }
+}
@@ -12,4 +12,12 @@ public record Order(int id, Product product, int quantity) {
         }
         return product.price().multiply(BigDecimal.valueOf(quantity));
     }
+
+    // same amount as totalPrice(), in cents and without allocating
+    public long totalCents() {
+        if (product == null) {
+            return 0;
+        }
+        return Math.multiplyExact(product.priceCents(), (long) quantity);
+    }
 }
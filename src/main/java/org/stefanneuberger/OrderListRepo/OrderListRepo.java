@@ -3,85 +3,146 @@ package org.stefanneuberger.OrderListRepo;
 import org.stefanneuberger.productRepo.Product;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 public class OrderListRepo implements OrderRepoSpec {
 
-    private final List<Order> orders = new ArrayList<>();
+    // order id -> order, iteration order is insertion order
+    private final Map<Integer, Order> orders = new LinkedHashMap<>();
+    // product id -> order id, there is at most one order per product
+    private final Map<Integer, Integer> orderIdsByProduct = new HashMap<>();
+    private int maxId;
+    private final List<OrderListener> listeners = new ArrayList<>();
+    // list view handed out by getOrders(), rebuilt lazily after a write
+    private List<Order> orderList;
 
     public OrderListRepo() {
     }
 
     public OrderListRepo(List<Order> orders) {
-        this.orders.addAll(orders);
+        for (Order order : orders) {
+            put(order);
+        }
     }
 
     public int getNextId() {
-        return orders.stream()
-                .mapToInt(Order::id)
-                .max()
-                .orElse(0) + 1;
+        return maxId + 1;
     }
 
+    @Override
     public Order addOrder(Product product, int quantity) {
+        // make sure there are no duplicate orders, an order for the same product is replaced
         Order order = new Order(getNextId(), product, quantity);
-        // make sure there are no duplicate orders
-        Order existingOrder = getOrderByProductId(order.product().id());
-        if (existingOrder != null) {
-            updateOrder(order);
-            return order;
-        }
-        orders.add(order);
+        put(order);
         return order;
     }
 
     @Override
     public void addOrder(Order order) {
-        orders.add(order);
+        put(order);
     }
 
 
     public void removeAllOrders() {
         orders.clear();
+        orderIdsByProduct.clear();
+        maxId = 0;
+        orderList = null;
+        for (OrderListener listener : listeners) {
+            listener.ordersCleared();
+        }
+        fireLockReleased();
     }
 
     public void removeOrderById(int id) {
-        orders.removeIf(o -> o.id() == id);
+        Order removed = orders.remove(id);
+        if (removed != null) {
+            orderIdsByProduct.remove(removed.product().id(), removed.id());
+            orderList = null;
+            fireRemoved(removed);
+            fireLockReleased();
+        }
     }
 
     public void updateOrder(Order order) {
-        orders.removeIf(o -> o.id() == order.id() || o.product().id() == order.product().id());
-        orders.add(order);
+        put(order);
     }
 
     public Order getOrderById(int id) {
-        return orders.stream()
-                .filter(o -> o.id() == id)
-                .findFirst()
-                .orElse(null);
+        return orders.get(id);
     }
 
     public Order getOrderByProductId(int productId) {
-        return orders.stream()
-                .filter(o -> o.product().id() == productId)
-                .findFirst()
-                .orElse(null);
+        Integer orderId = orderIdsByProduct.get(productId);
+        return orderId == null ? null : orders.get(orderId);
     }
 
     public List<Order> getOrders() {
-        return orders;
+        if (orderList == null) {
+            // read-only, an edit of this list would not reach the index
+            orderList = Collections.unmodifiableList(new ArrayList<>(orders.values()));
+        }
+        return orderList;
     }
 
     public void setOrders(List<Order> orders) {
-        this.orders.clear();
-        this.orders.addAll(orders);
+        removeAllOrders();
+        for (Order order : orders) {
+            put(order);
+        }
+    }
+
+    @Override
+    public void addOrderListener(OrderListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeOrderListener(OrderListener listener) {
+        listeners.remove(listener);
+    }
+
+    // upsert: drops the order with the same id and the order for the same product, then appends
+    private void put(Order order) {
+        Order sameId = orders.remove(order.id());
+        if (sameId != null) {
+            orderIdsByProduct.remove(sameId.product().id(), sameId.id());
+            fireRemoved(sameId);
+        }
+        Integer sameProductId = orderIdsByProduct.put(order.product().id(), order.id());
+        if (sameProductId != null) {
+            fireRemoved(orders.remove(sameProductId));
+        }
+        orders.put(order.id(), order);
+        maxId = Math.max(maxId, order.id());
+        orderList = null;
+        for (OrderListener listener : listeners) {
+            listener.orderAdded(order);
+        }
+        fireLockReleased();
+    }
+
+    private void fireRemoved(Order order) {
+        for (OrderListener listener : listeners) {
+            listener.orderRemoved(order);
+        }
+    }
+
+    private void fireLockReleased() {
+        for (OrderListener listener : listeners) {
+            listener.orderLockReleased();
+        }
     }
 
     @Override
     public String toString() {
         return "OrderListRepo{" +
-                "orders=" + orders +
+                "orders=" + getOrders() +
                 '}';
     }
 
@@ -89,12 +150,12 @@ public class OrderListRepo implements OrderRepoSpec {
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         OrderListRepo that = (OrderListRepo) o;
-        return Objects.equals(orders, that.orders);
+        return Objects.equals(getOrders(), that.getOrders());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(orders);
+        return Objects.hash(getOrders());
     }
 
 }
@@ -0,0 +1,17 @@
+package org.stefanneuberger.OrderListRepo;
+
+// Notified synchronously after every change of an order repository.
+// An update or an upsert that replaces an order is reported as orderRemoved followed by orderAdded.
+// A repository may hold a lock while it calls the listener, so it must be quick and must not throw.
+public interface OrderListener {
+    void orderAdded(Order order);
+
+    void orderRemoved(Order order);
+
+    void ordersCleared();
+
+    // called on the same thread once a write has been reported and the repository released the locks it
+    // held for it, for the slow part of handling a change (e.g. waiting for a disk write)
+    default void orderLockReleased() {
+    }
+}
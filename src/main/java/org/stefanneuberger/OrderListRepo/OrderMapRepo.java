@@ -1,5 +1,8 @@
 package org.stefanneuberger.OrderListRepo;
 
+import org.stefanneuberger.productRepo.Product;
+
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -7,29 +10,52 @@ import java.util.Map;
 public class OrderMapRepo implements OrderRepoSpec {
 
     private Map<Integer, Order> orders = new HashMap<>();
+    private final List<OrderListener> listeners = new ArrayList<>();
+    private int maxId;
 
     public OrderMapRepo(Map<Integer, Order> orders) {
         this.orders = orders;
+        for (int id : orders.keySet()) {
+            maxId = Math.max(maxId, id);
+        }
+    }
+
+    @Override
+    public Order addOrder(Product product, int quantity) {
+        Order order = new Order(maxId + 1, product, quantity);
+        put(order);
+        return order;
     }
 
     @Override
     public void addOrder(Order order) {
-        orders.put(order.id(), order);
+        put(order);
     }
 
     @Override
     public void removeAllOrders() {
         orders.clear();
+        maxId = 0;
+        for (OrderListener listener : listeners) {
+            listener.ordersCleared();
+        }
+        fireLockReleased();
     }
 
     @Override
     public void removeOrderById(int id) {
-        orders.remove(id);
+        Order removed = orders.remove(id);
+        if (removed != null) {
+            for (OrderListener listener : listeners) {
+                listener.orderRemoved(removed);
+            }
+            fireLockReleased();
+        }
     }
 
     @Override
     public void updateOrder(Order order) {
-        orders.put(order.id(), order);
+        put(order);
     }
 
     @Override
@@ -54,4 +80,32 @@ public class OrderMapRepo implements OrderRepoSpec {
     public List<Order> getOrders() {
         return List.copyOf(orders.values());
     }
+
+    @Override
+    public void addOrderListener(OrderListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeOrderListener(OrderListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void put(Order order) {
+        Order previous = orders.put(order.id(), order);
+        maxId = Math.max(maxId, order.id());
+        for (OrderListener listener : listeners) {
+            if (previous != null) {
+                listener.orderRemoved(previous);
+            }
+            listener.orderAdded(order);
+        }
+        fireLockReleased();
+    }
+
+    private void fireLockReleased() {
+        for (OrderListener listener : listeners) {
+            listener.orderLockReleased();
+        }
+    }
 }
@@ -1,8 +1,13 @@
 package org.stefanneuberger.OrderListRepo;
 
+import org.stefanneuberger.productRepo.Product;
+
 import java.util.List;
 
 public interface OrderRepoSpec {
+    // creates an order with the next free id
+    Order addOrder(Product product, int quantity);
+
     void addOrder(Order order);
 
     void removeAllOrders();
@@ -16,4 +21,13 @@ public interface OrderRepoSpec {
     Order getOrderByProductId(int productId);
 
     List<Order> getOrders();
+
+    void addOrderListener(OrderListener listener);
+
+    void removeOrderListener(OrderListener listener);
+
+    // this repository or the first of the given type among the repositories it decorates, null if none is
+    default <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : null;
+    }
 }
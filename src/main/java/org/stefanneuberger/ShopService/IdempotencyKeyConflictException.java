@@ -0,0 +1,10 @@
+package org.stefanneuberger.ShopService;
+
+// Thrown when an idempotency key is sent again for a different product or quantity.
+// Still an IllegalArgumentException, so callers that catch validation errors keep working.
+public class IdempotencyKeyConflictException extends IllegalArgumentException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,237 @@
+package org.stefanneuberger.ShopService;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.productRepo.Product;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Order creation with idempotency keys: a client that retries with the same key gets the order created by
+// the first attempt instead of a second order and a second stock decrement.
+// Keys are remembered for a fixed time in a table split into stripes, each an insertion-ordered map under
+// its own lock. With one ttl for all keys the oldest entry is always first, so expired keys are dropped from
+// the head while inserting and a full stripe drops its oldest key. A key whose first attempt is still running
+// is never dropped, a retry would create a second order; the table holds at most maxKeys plus the orders in
+// flight. Size maxKeys for the keys expected within one ttl: at a higher rate keys are dropped before their
+// ttl, counted in getEvictions(), and getRetention() tells how long keys are actually kept.
+// A key stays in the table only with what is needed to answer a retry: the order (shared with the order
+// repository) and product id and quantity to detect a key reused for a different order.
+// The lock is not held while the order is created. A concurrent retry of a key still in flight waits for
+// the first attempt. A failed attempt is forgotten, so it can be retried once the cause (e.g. stock) is gone.
+public class IdempotentOrderService {
+
+    private static final int STRIPES = 64;
+
+    private final ShopService shopService;
+    private final long ttlMillis;
+    private final int maxKeysPerStripe;
+    private final Clock clock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IdempotentOrderService(ShopService shopService, Duration ttl, int maxKeys) {
+        this(shopService, ttl, maxKeys, Clock.systemUTC());
+    }
+
+    public IdempotentOrderService(ShopService shopService, Duration ttl, int maxKeys, Clock clock) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Ttl must be greater than zero");
+        }
+        if (maxKeys < STRIPES) {
+            throw new IllegalArgumentException("Max keys must be at least " + STRIPES);
+        }
+        this.shopService = shopService;
+        this.ttlMillis = ttl.toMillis();
+        this.maxKeysPerStripe = maxKeys / STRIPES;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public ShopService getShopService() {
+        return shopService;
+    }
+
+    public Order createOrder(String idempotencyKey, Product product, int quantity) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            throw new IllegalArgumentException("Idempotency key cannot be empty");
+        }
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        Stripe stripe = stripe(idempotencyKey);
+        long now = clock.millis();
+        Entry entry;
+        boolean first;
+        stripe.lock.lock();
+        try {
+            stripe.expire(now - ttlMillis);
+            entry = stripe.entries.get(idempotencyKey);
+            first = entry == null;
+            if (first) {
+                entry = new Entry(product.id(), quantity, now);
+                stripe.entries.put(idempotencyKey, entry);
+                evictions.add(stripe.trim(maxKeysPerStripe));
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (!first) {
+            if (entry.productId != product.id() || entry.quantity != quantity) {
+                throw new IdempotencyKeyConflictException("Idempotency key was already used for a different order");
+            }
+            replays.increment();
+            return entry.await();
+        }
+        try {
+            Order order = shopService.createOrder(product, quantity);
+            entry.complete(order);
+            return order;
+        } catch (Throwable e) {
+            // an Error too, an entry left in flight would never be dropped and its retries would wait forever
+            stripe.lock.lock();
+            try {
+                stripe.entries.remove(idempotencyKey, entry);
+            } finally {
+                stripe.lock.unlock();
+            }
+            entry.fail(e);
+            throw e;
+        }
+    }
+
+    // number of keys currently remembered, including expired ones not dropped yet
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long getReplays() {
+        return replays.sum();
+    }
+
+    // keys dropped before their ttl because their stripe was full
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // How long keys are actually remembered: the age of the oldest key, or the ttl while the table has room.
+    public Duration getRetention() {
+        long now = clock.millis();
+        long oldest = now;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.expire(now - ttlMillis);
+                if (!stripe.entries.isEmpty()) {
+                    oldest = Math.min(oldest, stripe.entries.values().iterator().next().createdAtMillis);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return getEvictions() == 0 ? Duration.ofMillis(ttlMillis) : Duration.ofMillis(now - oldest);
+    }
+
+    private Stripe stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        // insertion order is creation order, the same ttl for all keys makes it expiry order too
+        final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        // caller holds the lock
+        void expire(long createdBeforeMillis) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.createdAtMillis > createdBeforeMillis) {
+                    return;
+                }
+                if (!entry.inFlight()) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        // caller holds the lock, returns the number of keys dropped
+        int trim(int maxKeys) {
+            int dropped = 0;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() > maxKeys && iterator.hasNext()) {
+                if (!iterator.next().inFlight()) {
+                    iterator.remove();
+                    dropped++;
+                }
+            }
+            return dropped;
+        }
+    }
+
+    // result is a CompletableFuture while the first attempt runs and the Order once it succeeded
+    private static final class Entry {
+        final int productId;
+        final int quantity;
+        final long createdAtMillis;
+        volatile Object result = new CompletableFuture<Order>();
+
+        Entry(int productId, int quantity, long createdAtMillis) {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        boolean inFlight() {
+            return result instanceof CompletableFuture;
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Order order) {
+            CompletableFuture<Order> pending = (CompletableFuture<Order>) result;
+            result = order;
+            pending.complete(order);
+        }
+
+        @SuppressWarnings("unchecked")
+        void fail(Throwable e) {
+            ((CompletableFuture<Order>) result).completeExceptionally(e);
+        }
+
+        @SuppressWarnings("unchecked")
+        Order await() {
+            Object current = result;
+            if (current instanceof Order order) {
+                return order;
+            }
+            try {
+                return ((CompletableFuture<Order>) current).join();
+            } catch (CompletionException e) {
+                // the waiting retry fails like the first attempt did
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
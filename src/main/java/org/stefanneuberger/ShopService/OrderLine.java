@@ -0,0 +1,6 @@
+package org.stefanneuberger.ShopService;
+
+import org.stefanneuberger.productRepo.Product;
+
+public record OrderLine(Product product, int quantity) {
+}
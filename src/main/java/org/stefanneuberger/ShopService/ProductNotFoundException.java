@@ -0,0 +1,10 @@
+package org.stefanneuberger.ShopService;
+
+// Thrown when an order names a product that is not in the shop's catalog.
+// Still an IllegalArgumentException, so callers that catch validation errors keep working.
+public class ProductNotFoundException extends IllegalArgumentException {
+
+    public ProductNotFoundException(String message) {
+        super(message);
+    }
+}
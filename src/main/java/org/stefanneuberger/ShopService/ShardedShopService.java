@@ -0,0 +1,199 @@
+package org.stefanneuberger.ShopService;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.OrderListRepo.OrderMapRepo;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepo;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Shop engine split into shards by product id. Every shard is a plain ShopService with its own catalog,
+// warehouse and single-threaded order repository, owned by one thread that works off the shard's mailbox,
+// so the shards share nothing and a shard's structures are never touched by two threads.
+// Calls return futures: single-product calls run on the product's shard, reads across products are
+// sent to every shard and merged here. Failures of ShopService (IllegalArgumentException) complete the
+// future exceptionally.
+// Order ids are unique across shards: local id l of shard s is (l - 1) * shardCount + s + 1, so the
+// shard of an order follows from its id. A local id whose global id would not fit into an int fails the
+// call with an IllegalStateException instead of wrapping around into another order's id.
+public class ShardedShopService implements Closeable {
+
+    private final Shard[] shards;
+    private volatile boolean closed;
+
+    public ShardedShopService(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be greater than zero");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(int productId) {
+        return Math.floorMod(productId, shards.length);
+    }
+
+    public CompletableFuture<Void> addProduct(Product product, int initialStock) {
+        if (product == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Product cannot be null"));
+        }
+        return submit(shardOf(product.id()), shop -> {
+            shop.getProductRepo().addProduct(product);
+            shop.getWarehouse().addProduct(product, initialStock);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Product> getProduct(int productId) {
+        return submit(shardOf(productId), shop -> shop.getProductRepo().getProductById(productId));
+    }
+
+    public CompletableFuture<Integer> getStockLevel(int productId) {
+        return submit(shardOf(productId), shop -> shop.getWarehouse().getStockLevel(productId));
+    }
+
+    public CompletableFuture<Order> createOrder(Product product, int quantity) {
+        if (product == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Product cannot be null"));
+        }
+        int shard = shardOf(product.id());
+        return submit(shard, shop -> toGlobal(shop.createOrder(product, quantity), shard));
+    }
+
+    public CompletableFuture<Order> getOrder(int orderId) {
+        if (orderId <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int shard = (orderId - 1) % shards.length;
+        int localId = (orderId - 1) / shards.length + 1;
+        return submit(shard, shop -> toGlobal(shop.getShopOrders().getOrderById(localId), shard));
+    }
+
+    public CompletableFuture<Void> deleteOrder(int orderId) {
+        if (orderId <= 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("OrderId must be greater than zero"));
+        }
+        int shard = (orderId - 1) % shards.length;
+        int localId = (orderId - 1) / shards.length + 1;
+        return submit(shard, shop -> {
+            shop.deleteOrder(localId);
+            return null;
+        });
+    }
+
+    // all orders of all shards, sorted by id
+    public CompletableFuture<List<Order>> getOrders() {
+        List<CompletableFuture<List<Order>>> parts = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int shard = i;
+            parts.add(submit(shard, shop -> {
+                List<Order> orders = shop.getShopOrders().getOrders();
+                List<Order> global = new ArrayList<>(orders.size());
+                for (Order order : orders) {
+                    global.add(toGlobal(order, shard));
+                }
+                return global;
+            }));
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<Order> merged = new ArrayList<>();
+            for (CompletableFuture<List<Order>> part : parts) {
+                merged.addAll(part.join());
+            }
+            merged.sort(Comparator.comparingInt(Order::id));
+            return merged;
+        });
+    }
+
+    // every shard sums its own orders, only the partial sums travel back
+    public CompletableFuture<Long> getRevenueCents() {
+        CompletableFuture<Long> total = CompletableFuture.completedFuture(0L);
+        for (int i = 0; i < shards.length; i++) {
+            CompletableFuture<Long> part = submit(i, shop -> {
+                long cents = 0;
+                for (Order order : shop.getShopOrders().getOrders()) {
+                    cents = Math.addExact(cents, order.totalCents());
+                }
+                return cents;
+            });
+            total = total.thenCombine(part, Math::addExact);
+        }
+        return total;
+    }
+
+    // stops taking new calls and waits for the queued ones to finish
+    @Override
+    public void close() {
+        closed = true;
+        for (Shard shard : shards) {
+            shard.mailbox.shutdown();
+        }
+        try {
+            for (Shard shard : shards) {
+                shard.mailbox.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(int shard, Function<ShopService, T> task) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Sharded shop is closed"));
+        }
+        Shard target = shards[shard];
+        try {
+            return CompletableFuture.supplyAsync(() -> task.apply(target.shop), target.mailbox);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Sharded shop is closed"));
+        }
+    }
+
+    private Order toGlobal(Order order, int shard) {
+        if (order == null) {
+            return null;
+        }
+        return new Order(globalId(order.id(), shard, shards.length), order.product(), order.quantity());
+    }
+
+    static int globalId(int localId, int shard, int shardCount) {
+        try {
+            return Math.addExact(Math.multiplyExact(localId - 1, shardCount), shard + 1);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("Order id " + localId + " of shard " + shard + " does not fit into a global id", e);
+        }
+    }
+
+    private static final class Shard {
+        final ShopService shop;
+        final ExecutorService mailbox;
+
+        Shard(int index) {
+            this.shop = new ShopService(index + 1, "Shard " + index, new Warehouse(index + 1, "Shard " + index), new ProductRepo());
+            // one writer per shard, so the plain map repository is enough; it also allows several orders per product
+            shop.setOrderRepo(new OrderMapRepo(new HashMap<>()));
+            this.mailbox = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "shop-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
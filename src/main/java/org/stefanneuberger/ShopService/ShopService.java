@@ -2,18 +2,34 @@ package org.stefanneuberger.ShopService;
 
 import org.stefanneuberger.OrderListRepo.Order;
 import org.stefanneuberger.OrderListRepo.OrderListRepo;
+import org.stefanneuberger.OrderListRepo.OrderRepoSpec;
+import org.stefanneuberger.events.EventBus;
+import org.stefanneuberger.events.ShopEvent;
 import org.stefanneuberger.productRepo.Product;
 import org.stefanneuberger.productRepo.ProductRepo;
+import org.stefanneuberger.productRepo.ProductRepoSpec;
+import org.stefanneuberger.warehouse.Allocation;
+import org.stefanneuberger.warehouse.InsufficientStockException;
+import org.stefanneuberger.warehouse.Reservation;
+import org.stefanneuberger.warehouse.StockReservations;
 import org.stefanneuberger.warehouse.Warehouse;
+import org.stefanneuberger.warehouse.WarehouseRegistry;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ShopService {
     private final int shopId;
     private final String shopName;
-    private OrderListRepo orderList = new OrderListRepo();
-    private ProductRepo productRepo;
+    private OrderRepoSpec orderList = new OrderListRepo();
+    private ProductRepoSpec productRepo;
     private Warehouse warehouse;
+    // when set, stock is taken from the registered warehouses instead of the single warehouse
+    private WarehouseRegistry warehouseRegistry;
+    // when set, order changes are published as events
+    private EventBus eventBus;
 
     public ShopService(int shopId, String shopName) {
         this.shopId = shopId;
@@ -34,6 +50,13 @@ public class ShopService {
         this.productRepo = new ProductRepo(allProducts);
     }
 
+    public ShopService(int shopId, String shopName, Warehouse warehouse, ProductRepoSpec productRepo) {
+        this.shopId = shopId;
+        this.shopName = shopName;
+        this.warehouse = warehouse;
+        this.productRepo = productRepo;
+    }
+
     public int getShopId() {
         return shopId;
     }
@@ -42,11 +65,11 @@ public class ShopService {
         return shopName;
     }
 
-    public ProductRepo getProductRepo() {
+    public ProductRepoSpec getProductRepo() {
         return productRepo;
     }
 
-    public void setProductRepo(ProductRepo productRepo) {
+    public void setProductRepo(ProductRepoSpec productRepo) {
         this.productRepo = productRepo;
     }
 
@@ -58,7 +81,23 @@ public class ShopService {
         this.warehouse = warehouse;
     }
 
-    public OrderListRepo getShopOrders() {
+    public WarehouseRegistry getWarehouseRegistry() {
+        return warehouseRegistry;
+    }
+
+    public void setWarehouseRegistry(WarehouseRegistry warehouseRegistry) {
+        this.warehouseRegistry = warehouseRegistry;
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    public OrderRepoSpec getShopOrders() {
         return orderList;
     }
 
@@ -66,6 +105,11 @@ public class ShopService {
         this.orderList = new OrderListRepo(shopOrders);
     }
 
+    // e.g. a ConcurrentOrderRepo when orders are created from many threads
+    public void setOrderRepo(OrderRepoSpec orderRepo) {
+        this.orderList = orderRepo;
+    }
+
     public Order createOrder(Product product, int quantity) {
         if (product == null) {
             throw new IllegalArgumentException("Product cannot be null");
@@ -74,31 +118,121 @@ public class ShopService {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
         if (productRepo.getProductById(product.id()) == null) {
-            throw new IllegalArgumentException("Product does not exist");
+            throw new ProductNotFoundException("Product does not exist");
         }
         
-        // Check warehouse stock if warehouse is available
-        if (warehouse != null) {
-            int currentStock = warehouse.getStockLevel(product.id());
-            if (currentStock < quantity) {
-                throw new IllegalArgumentException(
-                    String.format("Insufficient stock. Available: %d, Requested: %d",
-                        currentStock, quantity)
+        // Check and reduce the stock in one atomic step so concurrent orders cannot oversell
+        if (reserveStock(product.id(), quantity) == null) {
+            throw new InsufficientStockException(
+                String.format("Insufficient stock. Available: %d, Requested: %d",
+                    availableStock(product.id()), quantity)
+            );
+        }
+
+        return publishCreated(orderList.addOrder(product, quantity));
+    }
+
+    // Creates the order for a cart hold. The stock was already taken when the hold was placed.
+    public Order checkout(StockReservations reservations, long reservationId) {
+        Reservation reservation = reservations.getReservation(reservationId);
+        if (reservation == null) {
+            throw new IllegalArgumentException("Reservation does not exist or has expired");
+        }
+        Product product = productRepo.getProductById(reservation.productId());
+        if (product == null) {
+            throw new ProductNotFoundException("Product does not exist");
+        }
+        if (reservations.confirm(reservationId) == null) {
+            throw new IllegalArgumentException("Reservation does not exist or has expired");
+        }
+        return publishCreated(orderList.addOrder(product, reservation.quantity()));
+    }
+
+    public List<Order> createOrders(List<OrderLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("Order lines cannot be empty");
+        }
+
+        // Validate every line first and merge lines for the same product, there is one order per product
+        Map<Integer, OrderLine> merged = new LinkedHashMap<>();
+        for (OrderLine line : lines) {
+            if (line == null || line.product() == null) {
+                throw new IllegalArgumentException("Product cannot be null");
+            }
+            if (line.quantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero");
+            }
+            if (productRepo.getProductById(line.product().id()) == null) {
+                throw new ProductNotFoundException("Product does not exist");
+            }
+            merged.merge(line.product().id(), line,
+                    (a, b) -> new OrderLine(b.product(), Math.addExact(a.quantity(), b.quantity())));
+        }
+
+        // Reserve the stock for the whole batch, or for nothing at all
+        List<Runnable> reserved = new ArrayList<>(merged.size());
+        for (OrderLine line : merged.values()) {
+            int productId = line.product().id();
+            Runnable undo = reserveStock(productId, line.quantity());
+            if (undo == null) {
+                for (Runnable done : reserved) {
+                    done.run();
+                }
+                throw new InsufficientStockException(
+                    String.format("Insufficient stock for product %d. Available: %d, Requested: %d",
+                        productId, availableStock(productId), line.quantity())
                 );
             }
-            // Update the stock by reducing it
-            warehouse.updateStock(product.id(), currentStock - quantity);
+            reserved.add(undo);
         }
-        
-        return orderList.addOrder(product, quantity);    
+
+        List<Order> created = new ArrayList<>(merged.size());
+        for (OrderLine line : merged.values()) {
+            created.add(publishCreated(orderList.addOrder(line.product(), line.quantity())));
+        }
+        return created;
     }
 
+    private Order publishCreated(Order order) {
+        EventBus bus = eventBus;
+        if (bus != null) {
+            bus.publish(new ShopEvent.OrderCreated(order));
+        }
+        return order;
+    }
+
+    // Takes the stock for one order line. Returns how to give it back, or null if there is not enough.
+    private Runnable reserveStock(int productId, int quantity) {
+        if (warehouseRegistry != null) {
+            List<Allocation> allocations = warehouseRegistry.tryAllocate(productId, quantity);
+            return allocations == null ? null : () -> warehouseRegistry.release(allocations);
+        }
+        if (warehouse != null) {
+            if (!warehouse.tryDecreaseStock(productId, quantity)) {
+                return null;
+            }
+            return () -> warehouse.increaseStock(productId, quantity);
+        }
+        return () -> {};
+    }
+
+    private int availableStock(int productId) {
+        if (warehouseRegistry != null) {
+            return warehouseRegistry.getAvailableStock(productId);
+        }
+        return warehouse == null ? 0 : warehouse.getStockLevel(productId);
+    }
 
     public void deleteOrder(int orderId) {
         if (orderId <= 0) {
             throw new IllegalArgumentException("OrderId must be greater than zero");
         }
+        EventBus bus = eventBus;
+        boolean existed = bus != null && orderList.getOrderById(orderId) != null;
         orderList.removeOrderById(orderId);
+        if (existed) {
+            bus.publish(new ShopEvent.OrderDeleted(orderId));
+        }
     }
 
     public void updateOrder(int orderId, int quantity, Product product) {
@@ -112,9 +246,14 @@ public class ShopService {
             throw new IllegalArgumentException("Product cannot be null");
         }
         if (productRepo.getProductById(product.id()) == null) {
-            throw new IllegalArgumentException("Product does not exist");
+            throw new ProductNotFoundException("Product does not exist");
+        }
+        Order order = new Order(orderId, product, quantity);
+        orderList.updateOrder(order);
+        EventBus bus = eventBus;
+        if (bus != null) {
+            bus.publish(new ShopEvent.OrderUpdated(order));
         }
-        orderList.updateOrder(new Order(orderId, product, quantity));
     }
 
 }
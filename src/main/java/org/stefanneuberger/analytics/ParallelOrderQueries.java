@@ -0,0 +1,159 @@
+package org.stefanneuberger.analytics;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.OrderListRepo.OrderRepoSpec;
+import org.stefanneuberger.productRepo.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+
+// Offline reports over a full order history. The orders are split into chunks that are reduced on a
+// fork-join pool; all arithmetic is exact (long cents), so the results do not depend on how the work was split.
+// Product only accepts whole-cent prices, so the cents of every order are exactly its totalPrice() and the
+// results are equal by value to the sequential BigDecimal sums.
+public class ParallelOrderQueries {
+
+    private static final int DEFAULT_CHUNK_SIZE = 16_384;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelOrderQueries() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelOrderQueries(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public BigDecimal revenue(OrderRepoSpec orders) {
+        return revenue(orders.getOrders());
+    }
+
+    // always at scale 2: equal by compareTo, but not by equals, to a BigDecimal sum of prices at other scales
+    public BigDecimal revenue(List<Order> orders) {
+        long cents = reduce(orders, (list, from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum = Math.addExact(sum, list.get(i).totalCents());
+            }
+            return sum;
+        }, Math::addExact);
+        return Money.fromCents(cents);
+    }
+
+    // product id -> revenue at scale 2, ordered by product id
+    public SortedMap<Integer, BigDecimal> revenueByProduct(List<Order> orders) {
+        Map<Integer, long[]> cents = reduce(orders, (list, from, to) -> {
+            Map<Integer, long[]> partial = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                Order order = list.get(i);
+                long[] sum = partial.computeIfAbsent(order.product().id(), id -> new long[1]);
+                sum[0] = Math.addExact(sum[0], order.totalCents());
+            }
+            return partial;
+        }, (left, right) -> {
+            right.forEach((productId, sum) -> left.merge(productId, sum, (a, b) -> {
+                a[0] = Math.addExact(a[0], b[0]);
+                return a;
+            }));
+            return left;
+        });
+        SortedMap<Integer, BigDecimal> result = new TreeMap<>();
+        cents.forEach((productId, sum) -> result.put(productId, Money.fromCents(sum[0])));
+        return result;
+    }
+
+    // counts[i] = orders with quantity in [i * bucketWidth, (i + 1) * bucketWidth), the last bucket takes everything above
+    public long[] quantityHistogram(List<Order> orders, int bucketWidth, int buckets) {
+        if (bucketWidth <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("Bucket width and bucket count must be greater than zero");
+        }
+        return reduce(orders, (list, from, to) -> {
+            long[] counts = new long[buckets];
+            for (int i = from; i < to; i++) {
+                int bucket = Math.max(0, list.get(i).quantity()) / bucketWidth;
+                counts[Math.min(bucket, buckets - 1)]++;
+            }
+            return counts;
+        }, (left, right) -> {
+            for (int i = 0; i < left.length; i++) {
+                left[i] += right[i];
+            }
+            return left;
+        });
+    }
+
+    // matching orders in their original order
+    public List<Order> filter(List<Order> orders, Predicate<Order> predicate) {
+        return reduce(orders, (list, from, to) -> {
+            List<Order> matches = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                Order order = list.get(i);
+                if (predicate.test(order)) {
+                    matches.add(order);
+                }
+            }
+            return matches;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    private <R> R reduce(List<Order> orders, Leaf<R> leaf, BinaryOperator<R> combiner) {
+        // chunks are addressed by index, so make sure get(i) is cheap
+        List<Order> list = orders instanceof RandomAccess ? orders : new ArrayList<>(orders);
+        return pool.invoke(new Chunk<>(list, 0, list.size(), chunkSize, leaf, combiner));
+    }
+
+    private interface Leaf<R> {
+        R compute(List<Order> orders, int from, int to);
+    }
+
+    private static final class Chunk<R> extends RecursiveTask<R> {
+        private final List<Order> orders;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final Leaf<R> leaf;
+        private final BinaryOperator<R> combiner;
+
+        Chunk(List<Order> orders, int from, int to, int chunkSize, Leaf<R> leaf, BinaryOperator<R> combiner) {
+            this.orders = orders;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.leaf = leaf;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= chunkSize) {
+                return leaf.compute(orders, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Chunk<R> left = new Chunk<>(orders, from, middle, chunkSize, leaf, combiner);
+            Chunk<R> right = new Chunk<>(orders, middle, to, chunkSize, leaf, combiner);
+            left.fork();
+            R rightResult = right.compute();
+            // left before right keeps the combined result in the original order
+            return combiner.apply(left.join(), rightResult);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.stefanneuberger.analytics;
+
+import org.stefanneuberger.productRepo.Money;
+
+import java.math.BigDecimal;
+
+public record ProductSales(int productId, long unitsSold, long revenueCents) {
+
+    public BigDecimal revenue() {
+        return Money.fromCents(revenueCents);
+    }
+}
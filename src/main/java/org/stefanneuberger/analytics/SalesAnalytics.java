@@ -0,0 +1,131 @@
+package org.stefanneuberger.analytics;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.OrderListRepo.OrderListener;
+import org.stefanneuberger.OrderListRepo.OrderRepoSpec;
+import org.stefanneuberger.productRepo.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Running sales aggregates kept up to date from order repository events, so reads never rescan the orders.
+// Totals are O(1), per-product figures are one hash lookup and top-N walks the first N entries of a ranking.
+public class SalesAnalytics implements OrderListener {
+
+    private static final Comparator<ProductSales> BY_UNITS = Comparator
+            .comparingLong(ProductSales::unitsSold).reversed()
+            .thenComparingInt(ProductSales::productId);
+    private static final Comparator<ProductSales> BY_REVENUE = Comparator
+            .comparingLong(ProductSales::revenueCents).reversed()
+            .thenComparingInt(ProductSales::productId);
+
+    private final AtomicLong revenueCents = new AtomicLong();
+    private final AtomicLong unitsSold = new AtomicLong();
+    private final AtomicLong orderCount = new AtomicLong();
+    private final ConcurrentHashMap<Integer, ProductSales> salesByProduct = new ConcurrentHashMap<>();
+    private final NavigableSet<ProductSales> rankingByUnits = new ConcurrentSkipListSet<>(BY_UNITS);
+    private final NavigableSet<ProductSales> rankingByRevenue = new ConcurrentSkipListSet<>(BY_REVENUE);
+
+    // Counts the orders already in the repository once, then follows its changes.
+    public static SalesAnalytics attach(OrderRepoSpec orders) {
+        SalesAnalytics analytics = new SalesAnalytics();
+        for (Order order : orders.getOrders()) {
+            analytics.orderAdded(order);
+        }
+        orders.addOrderListener(analytics);
+        return analytics;
+    }
+
+    public BigDecimal getRevenue() {
+        return Money.fromCents(revenueCents.get());
+    }
+
+    public long getRevenueCents() {
+        return revenueCents.get();
+    }
+
+    public long getUnitsSold() {
+        return unitsSold.get();
+    }
+
+    public long getOrderCount() {
+        return orderCount.get();
+    }
+
+    public ProductSales getProductSales(int productId) {
+        return salesByProduct.getOrDefault(productId, new ProductSales(productId, 0, 0));
+    }
+
+    public List<ProductSales> topProductsByUnits(int n) {
+        return first(rankingByUnits, n);
+    }
+
+    public List<ProductSales> topProductsByRevenue(int n) {
+        return first(rankingByRevenue, n);
+    }
+
+    @Override
+    public void orderAdded(Order order) {
+        apply(order, 1);
+    }
+
+    @Override
+    public void orderRemoved(Order order) {
+        apply(order, -1);
+    }
+
+    @Override
+    public void ordersCleared() {
+        salesByProduct.clear();
+        rankingByUnits.clear();
+        rankingByRevenue.clear();
+        revenueCents.set(0);
+        unitsSold.set(0);
+        orderCount.set(0);
+    }
+
+    private void apply(Order order, int sign) {
+        long cents = sign * order.totalCents();
+        long units = sign * (long) order.quantity();
+        revenueCents.addAndGet(cents);
+        unitsSold.addAndGet(units);
+        orderCount.addAndGet(sign);
+
+        // compute() serializes changes per product, so both rankings always hold its current figures
+        salesByProduct.compute(order.product().id(), (productId, previous) -> {
+            if (previous != null) {
+                rankingByUnits.remove(previous);
+                rankingByRevenue.remove(previous);
+            }
+            long newUnits = (previous == null ? 0 : previous.unitsSold()) + units;
+            long newCents = (previous == null ? 0 : previous.revenueCents()) + cents;
+            if (newUnits == 0 && newCents == 0) {
+                return null;
+            }
+            ProductSales current = new ProductSales(productId, newUnits, newCents);
+            rankingByUnits.add(current);
+            rankingByRevenue.add(current);
+            return current;
+        });
+    }
+
+    private static List<ProductSales> first(NavigableSet<ProductSales> ranking, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n cannot be negative");
+        }
+        List<ProductSales> top = new ArrayList<>(Math.min(n, 64));
+        for (ProductSales sales : ranking) {
+            if (top.size() == n) {
+                break;
+            }
+            top.add(sales);
+        }
+        return top;
+    }
+}
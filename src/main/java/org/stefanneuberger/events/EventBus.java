@@ -0,0 +1,181 @@
+package org.stefanneuberger.events;
+
+import org.stefanneuberger.warehouse.StockListener;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// In-process publish/subscribe for shop events. Every subscriber gets its own bounded ring buffer and
+// consumer thread, so a slow subscriber only falls behind on its own. Publishing never blocks: when a
+// subscriber's buffer is full the event is dropped for that subscriber and counted in getDropped().
+// The subscriber is told about the gap with an EventsDropped event carrying the number of events lost.
+// It is delivered once the buffer has been drained, so every event published before the dropped ones
+// has been delivered before it; a subscriber that reloads its state from the source on it misses nothing.
+// Added as a StockListener to warehouses it turns their stock changes into StockChanged events.
+public class EventBus implements StockListener, Closeable {
+
+    private static final int MAX_BATCH = 256;
+    private static final int SPINS_BEFORE_PARKING = 100;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    // capacity is rounded up to a power of two
+    public Subscription subscribe(String name, EventSubscriber subscriber, int capacity) {
+        if (closed) {
+            throw new IllegalStateException("Event bus is closed");
+        }
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        Subscription subscription = new Subscription(name, subscriber, new RingBuffer(size));
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        if (subscriptions.remove(subscription)) {
+            subscription.stop();
+        }
+    }
+
+    public List<Subscription> getSubscriptions() {
+        return List.copyOf(subscriptions);
+    }
+
+    public void publish(ShopEvent event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    @Override
+    public void stockChanged(int warehouseId, int productId, int previousStock, int newStock) {
+        publish(new ShopEvent.StockChanged(warehouseId, productId, previousStock, newStock));
+    }
+
+    // Stops accepting events, lets every subscriber finish what is buffered and waits for it.
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.stop();
+        }
+        subscriptions.clear();
+    }
+
+    public static final class Subscription {
+        private final String name;
+        private final EventSubscriber subscriber;
+        private final RingBuffer buffer;
+        private final Thread thread;
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private volatile boolean running = true;
+        // set by the consumer before it parks, so publishers only pay for an unpark when it sleeps
+        private volatile boolean parked;
+        // drops already reported to the subscriber, consumer thread only
+        private long reportedDrops;
+
+        private Subscription(String name, EventSubscriber subscriber, RingBuffer buffer) {
+            this.name = name;
+            this.subscriber = subscriber;
+            this.buffer = buffer;
+            this.thread = new Thread(this::consume, "events-" + name);
+            thread.setDaemon(true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCapacity() {
+            return buffer.capacity();
+        }
+
+        public long getDelivered() {
+            return delivered.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        // events whose subscriber threw, the consumer keeps going with the next event
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        private void offer(ShopEvent event) {
+            if (!buffer.offer(event)) {
+                dropped.increment();
+                return;
+            }
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void consume() {
+            int idle = 0;
+            while (running || !buffer.isEmpty()) {
+                int drained = buffer.drain(this::deliver, MAX_BATCH);
+                if (drained < MAX_BATCH) {
+                    reportDrops();
+                }
+                if (drained > 0) {
+                    idle = 0;
+                } else if (idle++ < SPINS_BEFORE_PARKING) {
+                    Thread.onSpinWait();
+                } else {
+                    parked = true;
+                    // check again after announcing, an event published in between would not unpark us
+                    if (buffer.isEmpty() && running) {
+                        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+                    }
+                    parked = false;
+                }
+            }
+            reportDrops();
+        }
+
+        // A drop is counted after the publisher found the buffer full, so once the count is read an empty
+        // buffer means the events ahead of the dropped ones were delivered. Only the consumer takes events,
+        // the buffer cannot fill and empty again between reading the count and checking it.
+        private void reportDrops() {
+            long drops = dropped.sum() - reportedDrops;
+            if (drops == 0 || !buffer.isDrained()) {
+                return;
+            }
+            reportedDrops += drops;
+            try {
+                subscriber.onEvent(new ShopEvent.EventsDropped(drops), true);
+            } catch (RuntimeException e) {
+                failed.increment();
+            }
+        }
+
+        private void deliver(Object event, boolean endOfBatch) {
+            try {
+                subscriber.onEvent((ShopEvent) event, endOfBatch);
+                delivered.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+            }
+        }
+
+        private void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.stefanneuberger.events;
+
+// Called on the subscriber's own thread, events arrive in publishing order.
+// endOfBatch is true for the last event that was available, a good moment to flush buffered work.
+// EventsDropped means events were lost, a subscriber that keeps state reloads it from the source then.
+@FunctionalInterface
+public interface EventSubscriber {
+    void onEvent(ShopEvent event, boolean endOfBatch);
+}
@@ -0,0 +1,81 @@
+package org.stefanneuberger.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded multi-producer single-consumer queue on a power-of-two array.
+// Producers claim a sequence with a CAS on tail, store the event and then publish the sequence in the
+// slot's marker; the consumer reads slots in order as long as their marker shows the expected sequence.
+final class RingBuffer {
+
+    private final Object[] events;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // only written by the consumer
+    private volatile long head;
+
+    RingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.events = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    int capacity() {
+        return events.length;
+    }
+
+    // false if the buffer is full, the caller decides what to do with the event
+    boolean offer(Object event) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= events.length) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        int slot = (int) (sequence & mask);
+        events[slot] = event;
+        // a volatile write, EventBus relies on it being ordered before its read of the parked flag
+        published.set(slot, sequence);
+        return true;
+    }
+
+    // Hands every published event to the drain in order, up to maxEvents; consumer thread only.
+    int drain(Drain drain, int maxEvents) {
+        long next = head;
+        long end = next;
+        while (end - next < maxEvents && published.getAcquire((int) (end & mask)) == end) {
+            end++;
+        }
+        for (long sequence = next; sequence < end; sequence++) {
+            int slot = (int) (sequence & mask);
+            Object event = events[slot];
+            events[slot] = null;
+            drain.accept(event, sequence == end - 1);
+        }
+        if (end != next) {
+            head = end;
+        }
+        return (int) (end - next);
+    }
+
+    boolean isEmpty() {
+        return published.get((int) (head & mask)) != head;
+    }
+
+    // unlike isEmpty also false while a producer is still storing an event it has claimed a slot for
+    boolean isDrained() {
+        return tail.get() == head;
+    }
+
+    interface Drain {
+        void accept(Object event, boolean last);
+    }
+}
@@ -0,0 +1,22 @@
+package org.stefanneuberger.events;
+
+import org.stefanneuberger.OrderListRepo.Order;
+
+public sealed interface ShopEvent {
+
+    record OrderCreated(Order order) implements ShopEvent {
+    }
+
+    record OrderUpdated(Order order) implements ShopEvent {
+    }
+
+    record OrderDeleted(int orderId) implements ShopEvent {
+    }
+
+    record StockChanged(int warehouseId, int productId, int previousStock, int newStock) implements ShopEvent {
+    }
+
+    // Delivered by the EventBus instead of events that did not fit into a subscriber's buffer, see there.
+    record EventsDropped(long count) implements ShopEvent {
+    }
+}
@@ -0,0 +1,64 @@
+package org.stefanneuberger.http;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.productRepo.Product;
+
+// Just enough JSON output for the shop API, the project has no JSON library.
+final class Json {
+
+    private Json() {
+    }
+
+    static void product(StringBuilder out, Product product, int stock) {
+        out.append("{\"id\":").append(product.id())
+                .append(",\"name\":");
+        string(out, product.name());
+        out.append(",\"price\":");
+        if (product.price() == null) {
+            out.append("null");
+        } else {
+            out.append(product.price().toPlainString());
+        }
+        out.append(",\"stock\":").append(stock).append('}');
+    }
+
+    static void order(StringBuilder out, Order order) {
+        out.append("{\"id\":").append(order.id())
+                .append(",\"productId\":").append(order.product().id())
+                .append(",\"quantity\":").append(order.quantity())
+                .append(",\"total\":").append(order.totalPrice().toPlainString())
+                .append('}');
+    }
+
+    static String error(String message) {
+        StringBuilder out = new StringBuilder("{\"error\":");
+        string(out, message);
+        return out.append('}').toString();
+    }
+
+    static void string(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,266 @@
+package org.stefanneuberger.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.stefanneuberger.OrderListRepo.ConcurrentOrderRepo;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.ShopService.IdempotencyKeyConflictException;
+import org.stefanneuberger.ShopService.IdempotentOrderService;
+import org.stefanneuberger.ShopService.ShopService;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.search.SearchableProductRepo;
+import org.stefanneuberger.warehouse.InsufficientStockException;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+// HTTP API for a ShopService on the JDK's built-in server, every request runs on its own virtual thread.
+//   GET  /products            all products with their stock
+//   GET  /products?q=wire mo  type-ahead search when the product repository is or wraps a SearchableProductRepo,
+//                             optional limit (default 20)
+//   GET  /products/{id}       one product
+//   GET  /stock/{productId}   stock level of a product
+//   POST /orders              form or query parameters productId and quantity, creates an order;
+//                             with an Idempotency-Key header a retry returns the order of the first attempt
+public class ShopHttpServer {
+
+    private static final int BACKLOG = 16_384;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    // a retry is recognised for an hour as long as there are at most ~2M keys an hour (~300 MB of keys);
+    // beyond that keys are dropped earlier, IdempotentOrderService.getRetention() tells the real window
+    private static final Duration IDEMPOTENCY_TTL = Duration.ofHours(1);
+    private static final int MAX_IDEMPOTENCY_KEYS = 1 << 21;
+
+    private final ShopService shopService;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // only needed when the shop's order repository is single-threaded, stock changes are already atomic
+    // in the warehouse. a ReentrantLock instead of synchronized so a waiting virtual thread does not pin its carrier
+    private final ReentrantLock orderLock;
+    private final IdempotentOrderService idempotentOrders;
+
+    public ShopHttpServer(ShopService shopService, InetSocketAddress address) throws IOException {
+        this(shopService, address, new IdempotentOrderService(shopService, IDEMPOTENCY_TTL, MAX_IDEMPOTENCY_KEYS));
+    }
+
+    public ShopHttpServer(ShopService shopService, InetSocketAddress address,
+                          IdempotentOrderService idempotentOrders) throws IOException {
+        if (idempotentOrders.getShopService() != shopService) {
+            throw new IllegalArgumentException("Idempotent orders must belong to the same shop");
+        }
+        this.shopService = shopService;
+        this.idempotentOrders = idempotentOrders;
+        // unwrap, so a ConcurrentOrderRepo behind decorators (e.g. InstrumentedOrderRepo) is still found
+        this.orderLock = shopService.getShopOrders().unwrap(ConcurrentOrderRepo.class) != null ? null : new ReentrantLock();
+        this.server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/products", guarded(this::handleProducts));
+        server.createContext("/stock", guarded(this::handleStock));
+        server.createContext("/orders", guarded(this::handleOrders));
+    }
+
+    // The JDK server writes headers and body separately; with Nagle's algorithm on, every keep-alive
+    // response then waits for the client's delayed ACK (~40 ms). Same as launching with
+    // -Dsun.net.httpserver.nodelay=true: JVM-wide, and only effective before the first server is created,
+    // so launchers call it first thing. An explicit -D setting wins.
+    public static void useTcpNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleProducts(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, Json.error("Method not allowed"));
+            return;
+        }
+        String id = pathParameter(exchange, "/products");
+        if (id == null) {
+            Map<String, String> parameters = new HashMap<>();
+            parse(exchange.getRequestURI().getRawQuery(), parameters);
+            List<Product> products;
+            if (parameters.containsKey("q")) {
+                SearchableProductRepo searchable = shopService.getProductRepo().unwrap(SearchableProductRepo.class);
+                if (searchable == null) {
+                    send(exchange, 501, Json.error("Product search is not enabled"));
+                    return;
+                }
+                String limit = parameters.get("limit");
+                products = searchable.search(parameters.get("q"), limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, parseInt(limit)));
+            } else {
+                products = shopService.getProductRepo().getProducts();
+            }
+            StringBuilder out = new StringBuilder(products.size() * 64 + 2).append('[');
+            for (int i = 0; i < products.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                Product product = products.get(i);
+                Json.product(out, product, stockLevel(product.id()));
+            }
+            send(exchange, 200, out.append(']').toString());
+            return;
+        }
+        Product product = shopService.getProductRepo().getProductById(parseInt(id));
+        if (product == null) {
+            send(exchange, 404, Json.error("Product does not exist"));
+            return;
+        }
+        StringBuilder out = new StringBuilder();
+        Json.product(out, product, stockLevel(product.id()));
+        send(exchange, 200, out.toString());
+    }
+
+    private void handleStock(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, Json.error("Method not allowed"));
+            return;
+        }
+        String id = pathParameter(exchange, "/stock");
+        if (id == null) {
+            send(exchange, 404, Json.error("Not found"));
+            return;
+        }
+        int productId = parseInt(id);
+        send(exchange, 200, "{\"productId\":" + productId + ",\"stock\":" + stockLevel(productId) + "}");
+    }
+
+    private void handleOrders(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, Json.error("Method not allowed"));
+            return;
+        }
+        Map<String, String> parameters = parameters(exchange);
+        Product product = shopService.getProductRepo().getProductById(parseInt(parameters.get("productId")));
+        if (product == null) {
+            send(exchange, 404, Json.error("Product does not exist"));
+            return;
+        }
+        int quantity = parseInt(parameters.get("quantity"));
+        String idempotencyKey = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        try {
+            Order order;
+            if (orderLock == null) {
+                order = createOrder(idempotencyKey, product, quantity);
+            } else {
+                orderLock.lock();
+                try {
+                    order = createOrder(idempotencyKey, product, quantity);
+                } finally {
+                    orderLock.unlock();
+                }
+            }
+            StringBuilder out = new StringBuilder();
+            Json.order(out, order);
+            send(exchange, 201, out.toString());
+        } catch (IllegalArgumentException e) {
+            int status = e instanceof InsufficientStockException ? 409
+                    : e instanceof IdempotencyKeyConflictException ? 422 : 400;
+            send(exchange, status, Json.error(e.getMessage()));
+        }
+    }
+
+    // a retry with the same key gets the first order back instead of creating a second one
+    private Order createOrder(String idempotencyKey, Product product, int quantity) {
+        if (idempotencyKey == null) {
+            return shopService.createOrder(product, quantity);
+        }
+        return idempotentOrders.createOrder(idempotencyKey, product, quantity);
+    }
+
+    // Anything a handler did not map (e.g. a failing repository or listener) becomes a 500 instead of a
+    // connection the JDK server drops without a status.
+    private static HttpHandler guarded(HttpHandler handler) {
+        return exchange -> {
+            try {
+                handler.handle(exchange);
+            } catch (RuntimeException e) {
+                if (exchange.getResponseCode() == -1) {
+                    send(exchange, 500, Json.error("Internal server error"));
+                } else {
+                    exchange.close();
+                }
+            }
+        };
+    }
+
+    private int stockLevel(int productId) {
+        Warehouse warehouse = shopService.getWarehouse();
+        return warehouse != null ? warehouse.getStockLevel(productId) : 0;
+    }
+
+    // "/products/12" -> "12", "/products" -> null
+    private static String pathParameter(HttpExchange exchange, String context) {
+        String path = exchange.getRequestURI().getPath();
+        if (path.length() <= context.length() + 1) {
+            return null;
+        }
+        return path.substring(context.length() + 1);
+    }
+
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        parse(exchange.getRequestURI().getRawQuery(), parameters);
+        try (InputStream body = exchange.getRequestBody()) {
+            parse(new String(body.readAllBytes(), StandardCharsets.UTF_8), parameters);
+        }
+        return parameters;
+    }
+
+    private static void parse(String encoded, Map<String, String> parameters) {
+        if (encoded == null || encoded.isBlank()) {
+            return;
+        }
+        for (String pair : encoded.trim().split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    // invalid numbers fall through to the validation of ShopService, which rejects them
+    private static int parseInt(String value) {
+        try {
+            return value == null ? 0 : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package org.stefanneuberger.importer;
+
+import org.stefanneuberger.productRepo.Money;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepoSpec;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+// Streams a catalog feed into a product repository and, if given, the stock of a warehouse.
+// Files are read through one fixed 1 MB buffer, so memory use does not depend on the file size;
+// ids, prices and stock are parsed straight from the bytes, only product names become Strings.
+//
+// CSV:    id,name,price,stock per line, an optional header line, names may be quoted ("a ""b"", c").
+//         Prices have up to two decimals. Rows that do not parse are skipped and counted as rejected.
+// Binary: [int magic][int version][long rows], then per row
+//         [int id][long price in cents][int stock][short name length, -1 for no name][UTF-8 name]
+//         Rows with a negative id, price or stock are skipped and counted as rejected, like in CSV.
+public class CatalogImporter {
+
+    static final int MAGIC = 0x4341544C;
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ROW_FIXED_SIZE = 18;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final ProductRepoSpec products;
+    private final Warehouse warehouse;
+
+    // warehouse may be null, then the stock column is ignored
+    public CatalogImporter(ProductRepoSpec products, Warehouse warehouse) {
+        this.products = products;
+        this.warehouse = warehouse;
+    }
+
+    // Row count for presizing the target structures: exact for binary files, estimated from the
+    // first block for CSV.
+    public static long estimateRows(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // fill the sample
+            }
+            buffer.flip();
+            if (buffer.remaining() >= HEADER_SIZE && buffer.getInt(0) == MAGIC) {
+                return buffer.getLong(8);
+            }
+            int lines = 0;
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    lines++;
+                }
+            }
+            if (lines == 0) {
+                return buffer.limit() > 0 ? 1 : 0;
+            }
+            return channel.size() * lines / buffer.limit();
+        }
+    }
+
+    public ImportStats importCsv(Path file) throws IOException {
+        long start = System.nanoTime();
+        long bytes = 0;
+        Counts counts = new Counts();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] data = buffer.array();
+            long line = 0;
+            boolean eof = false;
+            while (!eof) {
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    bytes += read;
+                }
+                int end = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i < end; i++) {
+                    if (data[i] == '\n') {
+                        csvLine(data, lineStart, i, ++line, counts);
+                        lineStart = i + 1;
+                    }
+                }
+                if (eof) {
+                    if (lineStart < end) {
+                        csvLine(data, lineStart, end, ++line, counts);
+                    }
+                } else if (lineStart == 0 && end == data.length) {
+                    throw new IOException("Line " + (line + 1) + " is longer than " + BUFFER_SIZE + " bytes");
+                } else {
+                    // keep the incomplete last line for the next read
+                    buffer.position(lineStart);
+                    buffer.limit(end);
+                    buffer.compact();
+                }
+            }
+        }
+        return new ImportStats(counts.rows, counts.rejected, bytes, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    public ImportStats importBinary(Path file) throws IOException {
+        long start = System.nanoTime();
+        Counts counts = new Counts();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // starts empty, fill() reads as needed
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).limit(0);
+            byte[] name = new byte[Short.MAX_VALUE];
+            if (!fill(channel, buffer, HEADER_SIZE) || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a binary catalog file: " + file);
+            }
+            long expected = buffer.getLong();
+            for (long row = 0; row < expected; row++) {
+                if (!fill(channel, buffer, ROW_FIXED_SIZE)) {
+                    throw new IOException("Binary catalog ends after " + row + " of " + expected + " rows");
+                }
+                int id = buffer.getInt();
+                long cents = buffer.getLong();
+                int stock = buffer.getInt();
+                short nameLength = buffer.getShort();
+                String productName = null;
+                if (nameLength >= 0) {
+                    if (!fill(channel, buffer, nameLength)) {
+                        throw new IOException("Binary catalog ends after " + row + " of " + expected + " rows");
+                    }
+                    buffer.get(name, 0, nameLength);
+                    productName = new String(name, 0, nameLength, StandardCharsets.UTF_8);
+                }
+                // skipped like a CSV row that does not parse, the name has already been read past
+                if (id < 0 || cents < 0 || stock < 0) {
+                    counts.rejected++;
+                    continue;
+                }
+                load(new Product(id, productName, Money.fromCents(cents)), stock);
+                counts.rows++;
+            }
+        }
+        return new ImportStats(counts.rows, counts.rejected, Files.size(file),
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // Writes products and their stock in the binary format, e.g. to convert a CSV feed once.
+    public static void writeBinary(Path file, Iterable<Product> products, Warehouse warehouse) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(0);
+            long rows = 0;
+            for (Product product : products) {
+                byte[] name = product.name() == null ? null : product.name().getBytes(StandardCharsets.UTF_8);
+                if (name != null && name.length > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("Product name is too long: " + product.id());
+                }
+                int size = ROW_FIXED_SIZE + (name == null ? 0 : name.length);
+                if (buffer.remaining() < size) {
+                    drain(channel, buffer);
+                }
+                buffer.putInt(product.id())
+                        .putLong(product.priceCents())
+                        .putInt(warehouse == null ? 0 : warehouse.getStockLevel(product.id()))
+                        .putShort((short) (name == null ? -1 : name.length));
+                if (name != null) {
+                    buffer.put(name);
+                }
+                rows++;
+            }
+            drain(channel, buffer);
+            channel.write(ByteBuffer.allocate(8).putLong(0, rows), 8);
+            channel.force(false);
+        }
+    }
+
+    private void csvLine(byte[] data, int start, int end, long line, Counts counts) {
+        if (end > start && data[end - 1] == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+        int pos = start;
+        // id
+        long id = 0;
+        int digits = 0;
+        while (pos < end && data[pos] >= '0' && data[pos] <= '9') {
+            id = id * 10 + (data[pos++] - '0');
+            digits++;
+        }
+        if (digits == 0 || digits > 10 || id > Integer.MAX_VALUE || pos >= end || data[pos] != ',') {
+            // a first line that does not start with a number is the header
+            if (line != 1) {
+                counts.rejected++;
+            }
+            return;
+        }
+        pos++;
+
+        // name, quoted or up to the next comma
+        String name;
+        if (pos < end && data[pos] == '"') {
+            int nameStart = ++pos;
+            boolean escaped = false;
+            while (true) {
+                if (pos >= end) {
+                    counts.rejected++;
+                    return;
+                }
+                if (data[pos] == '"') {
+                    if (pos + 1 < end && data[pos + 1] == '"') {
+                        escaped = true;
+                        pos += 2;
+                        continue;
+                    }
+                    break;
+                }
+                pos++;
+            }
+            name = new String(data, nameStart, pos - nameStart, StandardCharsets.UTF_8);
+            if (escaped) {
+                name = name.replace("\"\"", "\"");
+            }
+            pos++;
+        } else {
+            int nameStart = pos;
+            while (pos < end && data[pos] != ',') {
+                pos++;
+            }
+            name = new String(data, nameStart, pos - nameStart, StandardCharsets.UTF_8);
+        }
+        if (pos >= end || data[pos] != ',') {
+            counts.rejected++;
+            return;
+        }
+        pos++;
+
+        // price in cents: digits, optionally a dot and up to two decimals
+        long cents = 0;
+        digits = 0;
+        while (pos < end && data[pos] >= '0' && data[pos] <= '9' && digits < 16) {
+            cents = cents * 10 + (data[pos++] - '0');
+            digits++;
+        }
+        int decimals = 0;
+        if (pos < end && data[pos] == '.') {
+            pos++;
+            while (pos < end && data[pos] >= '0' && data[pos] <= '9' && decimals < 3) {
+                cents = cents * 10 + (data[pos++] - '0');
+                decimals++;
+            }
+        }
+        if (digits + decimals == 0 || decimals > 2 || pos >= end || data[pos] != ',') {
+            counts.rejected++;
+            return;
+        }
+        for (; decimals < 2; decimals++) {
+            cents *= 10;
+        }
+        pos++;
+
+        // stock
+        long stock = 0;
+        digits = 0;
+        while (pos < end && data[pos] >= '0' && data[pos] <= '9' && digits <= 10) {
+            stock = stock * 10 + (data[pos++] - '0');
+            digits++;
+        }
+        if (digits == 0 || stock > Integer.MAX_VALUE || pos != end) {
+            counts.rejected++;
+            return;
+        }
+
+        load(new Product((int) id, name, Money.fromCents(cents)), (int) stock);
+        counts.rows++;
+    }
+
+    private void load(Product product, int stock) {
+        products.addProduct(product);
+        if (warehouse != null) {
+            warehouse.addProduct(product, stock);
+        }
+    }
+
+    // makes sure at least needed bytes are readable, false at the end of the file
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static final class Counts {
+        long rows;
+        long rejected;
+    }
+}
@@ -0,0 +1,17 @@
+package org.stefanneuberger.importer;
+
+import java.time.Duration;
+
+public record ImportStats(long rows, long rejectedRows, long bytes, Duration elapsed) {
+
+    public double rowsPerSecond() {
+        long nanos = Math.max(1, elapsed.toNanos());
+        return rows * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d rows (%d rejected, %.1f MB) in %d ms, %.0f rows/s",
+                rows, rejectedRows, bytes / 1e6, elapsed.toMillis(), rowsPerSecond());
+    }
+}
@@ -0,0 +1,107 @@
+package org.stefanneuberger.metrics;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.OrderListRepo.OrderListener;
+import org.stefanneuberger.OrderListRepo.OrderRepoSpec;
+import org.stefanneuberger.productRepo.Product;
+
+import java.util.List;
+
+// Decorator that times every order repository operation
+public class InstrumentedOrderRepo implements OrderRepoSpec {
+
+    private final OrderRepoSpec delegate;
+    private final LatencyHistogram addOrder;
+    private final LatencyHistogram removeOrder;
+    private final LatencyHistogram updateOrder;
+    private final LatencyHistogram getOrderById;
+    private final LatencyHistogram getOrderByProductId;
+    private final LatencyHistogram getOrders;
+
+    public InstrumentedOrderRepo(OrderRepoSpec delegate, Metrics metrics) {
+        this.delegate = delegate;
+        this.addOrder = metrics.timer("orders.addOrder");
+        this.removeOrder = metrics.timer("orders.removeOrderById");
+        this.updateOrder = metrics.timer("orders.updateOrder");
+        this.getOrderById = metrics.timer("orders.getOrderById");
+        this.getOrderByProductId = metrics.timer("orders.getOrderByProductId");
+        this.getOrders = metrics.timer("orders.getOrders");
+    }
+
+    public OrderRepoSpec getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : delegate.unwrap(type);
+    }
+
+    @Override
+    public Order addOrder(Product product, int quantity) {
+        long start = System.nanoTime();
+        Order order = delegate.addOrder(product, quantity);
+        addOrder.record(System.nanoTime() - start);
+        return order;
+    }
+
+    @Override
+    public void addOrder(Order order) {
+        long start = System.nanoTime();
+        delegate.addOrder(order);
+        addOrder.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void removeAllOrders() {
+        delegate.removeAllOrders();
+    }
+
+    @Override
+    public void removeOrderById(int id) {
+        long start = System.nanoTime();
+        delegate.removeOrderById(id);
+        removeOrder.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void updateOrder(Order order) {
+        long start = System.nanoTime();
+        delegate.updateOrder(order);
+        updateOrder.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public Order getOrderById(int id) {
+        long start = System.nanoTime();
+        Order order = delegate.getOrderById(id);
+        getOrderById.record(System.nanoTime() - start);
+        return order;
+    }
+
+    @Override
+    public Order getOrderByProductId(int productId) {
+        long start = System.nanoTime();
+        Order order = delegate.getOrderByProductId(productId);
+        getOrderByProductId.record(System.nanoTime() - start);
+        return order;
+    }
+
+    @Override
+    public List<Order> getOrders() {
+        long start = System.nanoTime();
+        List<Order> orders = delegate.getOrders();
+        getOrders.record(System.nanoTime() - start);
+        return orders;
+    }
+
+    @Override
+    public void addOrderListener(OrderListener listener) {
+        delegate.addOrderListener(listener);
+    }
+
+    @Override
+    public void removeOrderListener(OrderListener listener) {
+        delegate.removeOrderListener(listener);
+    }
+}
@@ -0,0 +1,72 @@
+package org.stefanneuberger.metrics;
+
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepoSpec;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Decorator that times product lookups and counts misses and writes
+public class InstrumentedProductRepo implements ProductRepoSpec {
+
+    private final ProductRepoSpec delegate;
+    private final LatencyHistogram lookups;
+    private final LongAdder misses;
+    private final LongAdder writes;
+
+    public InstrumentedProductRepo(ProductRepoSpec delegate, Metrics metrics) {
+        this.delegate = delegate;
+        this.lookups = metrics.timer("products.getProductById");
+        this.misses = metrics.counter("products.getProductById.miss");
+        this.writes = metrics.counter("products.writes");
+    }
+
+    public ProductRepoSpec getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : delegate.unwrap(type);
+    }
+
+    @Override
+    public List<Product> getProducts() {
+        return delegate.getProducts();
+    }
+
+    @Override
+    public void setProducts(List<Product> products) {
+        writes.increment();
+        delegate.setProducts(products);
+    }
+
+    @Override
+    public Product getProductById(int id) {
+        long start = System.nanoTime();
+        Product product = delegate.getProductById(id);
+        lookups.record(System.nanoTime() - start);
+        if (product == null) {
+            misses.increment();
+        }
+        return product;
+    }
+
+    @Override
+    public Product addProduct(Product product) {
+        writes.increment();
+        return delegate.addProduct(product);
+    }
+
+    @Override
+    public Product updateProduct(Product product) {
+        writes.increment();
+        return delegate.updateProduct(product);
+    }
+
+    @Override
+    public void deleteProduct(int id) {
+        writes.increment();
+        delegate.deleteProduct(id);
+    }
+}
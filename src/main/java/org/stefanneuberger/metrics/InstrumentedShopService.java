@@ -0,0 +1,118 @@
+package org.stefanneuberger.metrics;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.ShopService.OrderLine;
+import org.stefanneuberger.ShopService.ProductNotFoundException;
+import org.stefanneuberger.ShopService.ShopService;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepoSpec;
+import org.stefanneuberger.warehouse.InsufficientStockException;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// ShopService that times the order operations and counts rejections by reason
+public class InstrumentedShopService extends ShopService {
+
+    private final Metrics metrics;
+    private final LatencyHistogram createOrder;
+    private final LatencyHistogram createOrders;
+    private final LatencyHistogram updateOrder;
+    private final LatencyHistogram deleteOrder;
+    // one counter per operation and reason, resolved here so a rejection is a single increment
+    private final Map<RejectionReason, LongAdder> createOrderRejections;
+    private final Map<RejectionReason, LongAdder> createOrdersRejections;
+    private final Map<RejectionReason, LongAdder> updateOrderRejections;
+    private final Map<RejectionReason, LongAdder> deleteOrderRejections;
+
+    public InstrumentedShopService(int shopId, String shopName, Warehouse warehouse, ProductRepoSpec productRepo,
+                                   Metrics metrics) {
+        super(shopId, shopName, warehouse, productRepo);
+        this.metrics = metrics;
+        this.createOrder = metrics.timer("shop.createOrder");
+        this.createOrders = metrics.timer("shop.createOrders");
+        this.updateOrder = metrics.timer("shop.updateOrder");
+        this.deleteOrder = metrics.timer("shop.deleteOrder");
+        this.createOrderRejections = rejections(metrics, "shop.createOrder");
+        this.createOrdersRejections = rejections(metrics, "shop.createOrders");
+        this.updateOrderRejections = rejections(metrics, "shop.updateOrder");
+        this.deleteOrderRejections = rejections(metrics, "shop.deleteOrder");
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Order createOrder(Product product, int quantity) {
+        long start = System.nanoTime();
+        try {
+            return super.createOrder(product, quantity);
+        } catch (IllegalArgumentException e) {
+            createOrderRejections.get(reason(e)).increment();
+            throw e;
+        } finally {
+            createOrder.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Order> createOrders(List<OrderLine> lines) {
+        long start = System.nanoTime();
+        try {
+            return super.createOrders(lines);
+        } catch (IllegalArgumentException e) {
+            createOrdersRejections.get(reason(e)).increment();
+            throw e;
+        } finally {
+            createOrders.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateOrder(int orderId, int quantity, Product product) {
+        long start = System.nanoTime();
+        try {
+            super.updateOrder(orderId, quantity, product);
+        } catch (IllegalArgumentException e) {
+            updateOrderRejections.get(reason(e)).increment();
+            throw e;
+        } finally {
+            updateOrder.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteOrder(int orderId) {
+        long start = System.nanoTime();
+        try {
+            super.deleteOrder(orderId);
+        } catch (IllegalArgumentException e) {
+            deleteOrderRejections.get(reason(e)).increment();
+            throw e;
+        } finally {
+            deleteOrder.record(System.nanoTime() - start);
+        }
+    }
+
+    private static RejectionReason reason(IllegalArgumentException e) {
+        if (e instanceof InsufficientStockException) {
+            return RejectionReason.INSUFFICIENT_STOCK;
+        }
+        if (e instanceof ProductNotFoundException) {
+            return RejectionReason.PRODUCT_NOT_FOUND;
+        }
+        return RejectionReason.INVALID_REQUEST;
+    }
+
+    private static Map<RejectionReason, LongAdder> rejections(Metrics metrics, String prefix) {
+        Map<RejectionReason, LongAdder> counters = new EnumMap<>(RejectionReason.class);
+        for (RejectionReason reason : RejectionReason.values()) {
+            counters.put(reason, metrics.rejections(prefix, reason));
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,64 @@
+package org.stefanneuberger.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Named latency histograms and counters. Look a metric up once and keep the reference on hot paths,
+// recording then costs a few striped increments.
+public class Metrics {
+
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private volatile long startedNanos = System.nanoTime();
+
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    public void increment(String name) {
+        counter(name).increment();
+    }
+
+    public long getCount(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    // named "<prefix>.rejected.<reason>", e.g. "shop.createOrder.rejected.insufficientStock"
+    public LongAdder rejections(String prefix, RejectionReason reason) {
+        return counter(prefix + ".rejected." + reason.getMetricName());
+    }
+
+    public void reset() {
+        timers.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(LongAdder::reset);
+        startedNanos = System.nanoTime();
+    }
+
+    // One line per metric, sorted by name. Rates are per second since creation or the last reset.
+    public String snapshot() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startedNanos) / 1e9);
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("# metrics over %s%n", Duration.ofNanos(System.nanoTime() - startedNanos)));
+        new TreeMap<>(timers).forEach((name, histogram) -> text.append(String.format(
+                "%s count=%d rate=%.1f/s mean=%.0fns p50=%dns p99=%dns p999=%dns max=%dns%n",
+                name, histogram.getCount(), histogram.getCount() / seconds, histogram.getMean(),
+                histogram.getValueAtQuantile(0.5), histogram.getValueAtQuantile(0.99),
+                histogram.getValueAtQuantile(0.999), histogram.getMax())));
+        new TreeMap<>(counters).forEach((name, counter) -> text.append(String.format(
+                "%s count=%d rate=%.1f/s%n", name, counter.sum(), counter.sum() / seconds)));
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return snapshot();
+    }
+}
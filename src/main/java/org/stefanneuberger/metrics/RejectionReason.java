@@ -0,0 +1,19 @@
+package org.stefanneuberger.metrics;
+
+// Why an operation was rejected. A fixed set, so every reason is exactly one counter
+// no matter which product or quantity the rejected call was about.
+public enum RejectionReason {
+    INSUFFICIENT_STOCK("insufficientStock"),
+    PRODUCT_NOT_FOUND("productNotFound"),
+    INVALID_REQUEST("invalidRequest");
+
+    private final String metricName;
+
+    RejectionReason(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,34 @@
+package org.stefanneuberger.metrics;
+
+import org.stefanneuberger.warehouse.StockListener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts stock changes and moved units of the warehouses it is added to as a listener
+public class StockMetrics implements StockListener {
+
+    private final LongAdder changes;
+    private final LongAdder unitsIn;
+    private final LongAdder unitsOut;
+    private final LongAdder soldOut;
+
+    public StockMetrics(Metrics metrics) {
+        this.changes = metrics.counter("warehouse.stockChanges");
+        this.unitsIn = metrics.counter("warehouse.unitsIn");
+        this.unitsOut = metrics.counter("warehouse.unitsOut");
+        this.soldOut = metrics.counter("warehouse.soldOut");
+    }
+
+    @Override
+    public void stockChanged(int warehouseId, int productId, int previousStock, int newStock) {
+        changes.increment();
+        if (newStock > previousStock) {
+            unitsIn.add((long) newStock - previousStock);
+        } else {
+            unitsOut.add((long) previousStock - newStock);
+            if (newStock == 0 && previousStock > 0) {
+                soldOut.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.stefanneuberger.paging;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.OrderListRepo.OrderListener;
+import org.stefanneuberger.OrderListRepo.OrderRepoSpec;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Sorted, paged views of an order repository, one SortedIndex per OrderSort kept up to date through
+// the repository's listener. Works with every OrderRepoSpec, getOrders() is only read once by attach,
+// so attach it before the repository is written from other threads. The indexes follow the events in the
+// order the repository reports them; ConcurrentOrderRepo reports the events of one product in the order
+// they were applied.
+public class OrderPages implements OrderListener, Closeable {
+
+    private final OrderRepoSpec orders;
+    private final Map<OrderSort, SortedIndex<Order>> indexes = new EnumMap<>(OrderSort.class);
+
+    private OrderPages(OrderRepoSpec orders) {
+        this.orders = orders;
+        for (OrderSort sort : OrderSort.values()) {
+            indexes.put(sort, new SortedIndex<>(sort.getOrder(), Order::id));
+        }
+    }
+
+    // Registers the listener once the indexes exist, then indexes the orders already in the repository.
+    public static OrderPages attach(OrderRepoSpec orders) {
+        OrderPages pages = new OrderPages(orders);
+        orders.addOrderListener(pages);
+        for (Order order : orders.getOrders()) {
+            pages.orderAdded(order);
+        }
+        return pages;
+    }
+
+    // after is the last order of the previous page, null for the first page
+    public Page<Order> getPage(OrderSort sort, Order after, int size, boolean descending) {
+        return indexes.get(sort).page(after, size, descending);
+    }
+
+    public Page<Order> getPage(OrderSort sort, Order after, int size) {
+        return getPage(sort, after, size, false);
+    }
+
+    public int size() {
+        return indexes.get(OrderSort.ID).size();
+    }
+
+    @Override
+    public void orderAdded(Order order) {
+        for (SortedIndex<Order> index : indexes.values()) {
+            index.put(order);
+        }
+    }
+
+    // only if it is still the indexed version, the removal of a replaced order may arrive late
+    @Override
+    public void orderRemoved(Order order) {
+        for (SortedIndex<Order> index : indexes.values()) {
+            index.remove(order);
+        }
+    }
+
+    @Override
+    public void ordersCleared() {
+        for (SortedIndex<Order> index : indexes.values()) {
+            index.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        orders.removeOrderListener(this);
+    }
+}
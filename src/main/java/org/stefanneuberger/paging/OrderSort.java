@@ -0,0 +1,22 @@
+package org.stefanneuberger.paging;
+
+import org.stefanneuberger.OrderListRepo.Order;
+
+import java.util.Comparator;
+
+public enum OrderSort {
+    ID(Comparator.comparingInt(Order::id)),
+    // in cents like ProductSort.PRICE, Product only accepts whole-cent prices
+    TOTAL(Comparator.comparingLong(Order::totalCents)),
+    PRODUCT(Comparator.comparingInt(order -> order.product() == null ? 0 : order.product().id()));
+
+    private final Comparator<Order> order;
+
+    OrderSort(Comparator<Order> order) {
+        this.order = order;
+    }
+
+    public Comparator<Order> getOrder() {
+        return order;
+    }
+}
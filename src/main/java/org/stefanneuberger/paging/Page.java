@@ -0,0 +1,11 @@
+package org.stefanneuberger.paging;
+
+import java.util.List;
+
+// One page of a sorted view. The last item is the cursor for the next page.
+public record Page<T>(List<T> items, boolean hasMore) {
+
+    public T last() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+}
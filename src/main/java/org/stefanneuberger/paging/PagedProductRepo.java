@@ -0,0 +1,94 @@
+package org.stefanneuberger.paging;
+
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepoSpec;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Decorator that keeps one SortedIndex per ProductSort next to the delegate, so a page of the catalog
+// in any of those orders costs O(log n + page size) instead of a copy or sort of getProducts().
+// Every write goes to the delegate first and then to all indexes.
+public class PagedProductRepo implements ProductRepoSpec {
+
+    private final ProductRepoSpec delegate;
+    private final Map<ProductSort, SortedIndex<Product>> indexes = new EnumMap<>(ProductSort.class);
+
+    public PagedProductRepo(ProductRepoSpec delegate) {
+        this.delegate = delegate;
+        for (ProductSort sort : ProductSort.values()) {
+            indexes.put(sort, new SortedIndex<>(sort.getOrder(), Product::id));
+        }
+        for (Product product : delegate.getProducts()) {
+            index(product);
+        }
+    }
+
+    public ProductRepoSpec getDelegate() {
+        return delegate;
+    }
+
+    // after is the last product of the previous page, null for the first page
+    public Page<Product> getPage(ProductSort sort, Product after, int size, boolean descending) {
+        return indexes.get(sort).page(after, size, descending);
+    }
+
+    public Page<Product> getPage(ProductSort sort, Product after, int size) {
+        return getPage(sort, after, size, false);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : delegate.unwrap(type);
+    }
+
+    @Override
+    public List<Product> getProducts() {
+        return delegate.getProducts();
+    }
+
+    @Override
+    public void setProducts(List<Product> products) {
+        delegate.setProducts(products);
+        for (SortedIndex<Product> index : indexes.values()) {
+            index.clear();
+        }
+        for (Product product : products) {
+            index(product);
+        }
+    }
+
+    @Override
+    public Product getProductById(int id) {
+        return delegate.getProductById(id);
+    }
+
+    @Override
+    public Product addProduct(Product product) {
+        Product added = delegate.addProduct(product);
+        index(product);
+        return added;
+    }
+
+    @Override
+    public Product updateProduct(Product product) {
+        Product updated = delegate.updateProduct(product);
+        index(product);
+        return updated;
+    }
+
+    @Override
+    public void deleteProduct(int id) {
+        delegate.deleteProduct(id);
+        for (SortedIndex<Product> index : indexes.values()) {
+            index.remove(id);
+        }
+    }
+
+    private void index(Product product) {
+        for (SortedIndex<Product> index : indexes.values()) {
+            index.put(product);
+        }
+    }
+}
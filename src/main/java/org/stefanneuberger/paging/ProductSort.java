@@ -0,0 +1,22 @@
+package org.stefanneuberger.paging;
+
+import org.stefanneuberger.productRepo.Product;
+
+import java.util.Comparator;
+
+public enum ProductSort {
+    ID(Comparator.comparingInt(Product::id)),
+    NAME(Comparator.comparing(Product::name, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))),
+    // cents are exact, Product only accepts whole-cent prices; no price sorts like 0
+    PRICE(Comparator.comparingLong(Product::priceCents));
+
+    private final Comparator<Product> order;
+
+    ProductSort(Comparator<Product> order) {
+        this.order = order;
+    }
+
+    public Comparator<Product> getOrder() {
+        return order;
+    }
+}
@@ -0,0 +1,90 @@
+package org.stefanneuberger.paging;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.ToIntFunction;
+
+// Items kept sorted by an order with the id as tie breaker, so every item has exactly one position.
+// Pages are read by cursor: the last item of the previous page is the exclusive start of the next one,
+// a skip list search plus one step per returned item, O(log n + m) however deep the page is.
+// The cursor is only compared against, it does not have to be in the index anymore.
+// A write replaces the previous version of its id atomically per id; reads do not lock and see
+// every write that completed before the page was started.
+public class SortedIndex<T> {
+
+    private final ToIntFunction<? super T> idOf;
+    private final ConcurrentSkipListSet<T> items;
+    private final Map<Integer, T> byId = new ConcurrentHashMap<>();
+
+    public SortedIndex(Comparator<? super T> order, ToIntFunction<? super T> idOf) {
+        this.idOf = idOf;
+        Comparator<T> byOrder = order::compare;
+        this.items = new ConcurrentSkipListSet<>(byOrder.thenComparingInt(idOf));
+    }
+
+    public void put(T item) {
+        byId.compute(idOf.applyAsInt(item), (id, previous) -> {
+            if (previous != null) {
+                items.remove(previous);
+            }
+            items.add(item);
+            return item;
+        });
+    }
+
+    public void remove(int id) {
+        byId.computeIfPresent(id, (key, previous) -> {
+            items.remove(previous);
+            return null;
+        });
+    }
+
+    // removes the item only if it is still the current version of its id
+    public void remove(T item) {
+        byId.computeIfPresent(idOf.applyAsInt(item), (key, current) -> {
+            if (!current.equals(item)) {
+                return current;
+            }
+            items.remove(current);
+            return null;
+        });
+    }
+
+    // per id, so a write running at the same time is either removed completely or kept completely
+    public void clear() {
+        for (Integer id : byId.keySet()) {
+            remove(id);
+        }
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public T get(int id) {
+        return byId.get(id);
+    }
+
+    // after == null starts at the first item, in descending order at the last one
+    public Page<T> page(T after, int size, boolean descending) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+        NavigableSet<T> view = descending ? items.descendingSet() : items;
+        if (after != null) {
+            view = view.tailSet(after, false);
+        }
+        List<T> page = new ArrayList<>(Math.min(size, 256));
+        Iterator<T> iterator = view.iterator();
+        while (page.size() < size && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return new Page<>(page, iterator.hasNext());
+    }
+}
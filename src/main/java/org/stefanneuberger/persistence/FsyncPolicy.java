@@ -0,0 +1,10 @@
+package org.stefanneuberger.persistence;
+
+public enum FsyncPolicy {
+    // every append waits until its record is forced to disk, concurrent appends share one fsync
+    ALWAYS,
+    // a background thread writes and forces the log at a fixed interval
+    PERIODIC,
+    // a background thread writes the log at a fixed interval and leaves flushing to the OS
+    NEVER
+}
@@ -0,0 +1,111 @@
+package org.stefanneuberger.persistence;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Binary layout of log records and of the products and orders inside them.
+final class LogCodec {
+
+    static final byte ORDER_ADDED = 1;
+    static final byte ORDER_REMOVED = 2;
+    static final byte ORDERS_CLEARED = 3;
+    static final byte STOCK_CHANGED = 4;
+
+    private LogCodec() {
+    }
+
+    static void write(LogRecord record, ByteBuffer buffer) {
+        switch (record) {
+            case LogRecord.OrderAdded added -> {
+                buffer.put(ORDER_ADDED);
+                writeOrder(added.order(), buffer);
+            }
+            case LogRecord.OrderRemoved removed -> {
+                buffer.put(ORDER_REMOVED);
+                buffer.putInt(removed.orderId());
+            }
+            case LogRecord.OrdersCleared cleared -> buffer.put(ORDERS_CLEARED);
+            case LogRecord.StockChanged changed -> {
+                buffer.put(STOCK_CHANGED);
+                buffer.putInt(changed.warehouseId());
+                buffer.putInt(changed.productId());
+                buffer.putInt(changed.stock());
+            }
+        }
+    }
+
+    static LogRecord read(ByteBuffer buffer) {
+        byte type = buffer.get();
+        return switch (type) {
+            case ORDER_ADDED -> new LogRecord.OrderAdded(readOrder(buffer));
+            case ORDER_REMOVED -> new LogRecord.OrderRemoved(buffer.getInt());
+            case ORDERS_CLEARED -> new LogRecord.OrdersCleared();
+            case STOCK_CHANGED -> new LogRecord.StockChanged(buffer.getInt(), buffer.getInt(), buffer.getInt());
+            default -> throw new IllegalStateException("Unknown log record type " + type);
+        };
+    }
+
+    static void writeOrder(Order order, ByteBuffer buffer) {
+        buffer.putInt(order.id());
+        buffer.putInt(order.quantity());
+        writeProduct(order.product(), buffer);
+    }
+
+    static Order readOrder(ByteBuffer buffer) {
+        int id = buffer.getInt();
+        int quantity = buffer.getInt();
+        return new Order(id, readProduct(buffer), quantity);
+    }
+
+    static void writeProduct(Product product, ByteBuffer buffer) {
+        buffer.putInt(product.id());
+        writeString(product.name(), buffer);
+        BigDecimal price = product.price();
+        if (price == null) {
+            buffer.put((byte) 0);
+        } else {
+            byte[] unscaled = price.unscaledValue().toByteArray();
+            buffer.put((byte) unscaled.length);
+            buffer.put(unscaled);
+            buffer.putInt(price.scale());
+        }
+    }
+
+    static Product readProduct(ByteBuffer buffer) {
+        int id = buffer.getInt();
+        String name = readString(buffer);
+        int length = buffer.get() & 0xFF;
+        BigDecimal price = null;
+        if (length > 0) {
+            byte[] unscaled = new byte[length];
+            buffer.get(unscaled);
+            price = new BigDecimal(new BigInteger(unscaled), buffer.getInt());
+        }
+        return new Product(id, name, price);
+    }
+
+    private static void writeString(String value, ByteBuffer buffer) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,20 @@
+package org.stefanneuberger.persistence;
+
+import org.stefanneuberger.OrderListRepo.Order;
+
+// A single mutation in the write-ahead log. Every record describes the resulting state of one key,
+// so replaying a record that is already reflected in the state does not change anything.
+public sealed interface LogRecord {
+
+    record OrderAdded(Order order) implements LogRecord {
+    }
+
+    record OrderRemoved(int orderId) implements LogRecord {
+    }
+
+    record OrdersCleared() implements LogRecord {
+    }
+
+    record StockChanged(int warehouseId, int productId, int stock) implements LogRecord {
+    }
+}
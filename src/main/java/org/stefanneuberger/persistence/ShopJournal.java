@@ -0,0 +1,213 @@
+package org.stefanneuberger.persistence;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.OrderListRepo.OrderListener;
+import org.stefanneuberger.OrderListRepo.OrderRepoSpec;
+import org.stefanneuberger.productRepo.ProductRepoSpec;
+import org.stefanneuberger.warehouse.StockListener;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Makes an order repository and its warehouses durable: on open the latest snapshot is loaded and
+// the log written after it is replayed, afterwards every order and stock change is appended to the log.
+// checkpoint() writes a new snapshot and deletes the log segments it covers.
+public class ShopJournal implements OrderListener, StockListener, Closeable {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final WriteAheadLog log;
+    private final ProductRepoSpec products;
+    private final OrderRepoSpec orders;
+    private final Map<Integer, Warehouse> warehouses = new LinkedHashMap<>();
+    private final long replayedRecords;
+    // log position of the last record this thread buffered and has not waited for yet
+    private final ThreadLocal<long[]> pendingPosition = ThreadLocal.withInitial(() -> new long[1]);
+
+    private ShopJournal(WriteAheadLog log, ProductRepoSpec products, OrderRepoSpec orders,
+                        List<Warehouse> warehouses) throws IOException {
+        this.log = log;
+        this.products = products;
+        this.orders = orders;
+        for (Warehouse warehouse : warehouses) {
+            this.warehouses.put(warehouse.getWarehouseId(), warehouse);
+        }
+        long fromSegment = 0;
+        Optional<Path> snapshot = latestSnapshot();
+        if (snapshot.isPresent()) {
+            Snapshot loaded = Snapshot.read(snapshot.get());
+            restore(loaded);
+            fromSegment = loaded.logSegment();
+        }
+        // replay before listening, otherwise the replayed changes would be logged a second time
+        this.replayedRecords = log.replay(fromSegment, this::apply);
+        orders.addOrderListener(this);
+        for (Warehouse warehouse : warehouses) {
+            warehouse.addStockListener(this);
+        }
+    }
+
+    public static ShopJournal open(Path directory, FsyncPolicy fsyncPolicy, Duration flushInterval,
+                                   OrderRepoSpec orders, List<Warehouse> warehouses) throws IOException {
+        return open(directory, fsyncPolicy, flushInterval, null, orders, warehouses);
+    }
+
+    // products may be null, otherwise the catalog is part of every snapshot
+    public static ShopJournal open(Path directory, FsyncPolicy fsyncPolicy, Duration flushInterval,
+                                   ProductRepoSpec products, OrderRepoSpec orders,
+                                   List<Warehouse> warehouses) throws IOException {
+        return new ShopJournal(new WriteAheadLog(directory, fsyncPolicy, flushInterval), products, orders, warehouses);
+    }
+
+    // Fuzzy checkpoint: the log is rolled first and the state is captured while writers keep going.
+    // Changes that slip into the snapshot are also in the new segment, and replaying them again is harmless
+    // because every record sets the final state of its key.
+    public synchronized Path checkpoint() throws IOException {
+        long segment = log.roll();
+        Map<Integer, Map<Integer, Integer>> stock = new LinkedHashMap<>();
+        for (Warehouse warehouse : warehouses.values()) {
+            stock.put(warehouse.getWarehouseId(), warehouse.getStockLevels());
+        }
+        Path directory = log.getDirectory();
+        Path temp = directory.resolve(SNAPSHOT_PREFIX + "in-progress.tmp");
+        Snapshot.write(temp, segment, products == null ? List.of() : products.getProducts(), stock, orders.getOrders());
+        Path target = directory.resolve(snapshotName(segment));
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // the new snapshot is durable, older snapshots and the log they needed can go
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path old : files.filter(ShopJournal::isSnapshot).filter(path -> !path.equals(target)).toList()) {
+                Files.deleteIfExists(old);
+            }
+        }
+        log.deleteSegmentsBefore(segment);
+        return target;
+    }
+
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    public WriteAheadLog getLog() {
+        return log;
+    }
+
+    // The order and stock callbacks run under the lock of the repository's or warehouse's stripe, which
+    // keeps the records of a product in order. Records are only buffered there; with FsyncPolicy.ALWAYS the
+    // wait for the disk happens in orderLockReleased() and stockLockReleased(), so an fsync does not block
+    // the other products of the stripe.
+    @Override
+    public void orderAdded(Order order) {
+        buffer(new LogRecord.OrderAdded(order));
+    }
+
+    @Override
+    public void orderRemoved(Order order) {
+        buffer(new LogRecord.OrderRemoved(order.id()));
+    }
+
+    @Override
+    public void ordersCleared() {
+        buffer(new LogRecord.OrdersCleared());
+    }
+
+    @Override
+    public void orderLockReleased() {
+        awaitPending();
+    }
+
+    @Override
+    public void stockChanged(int warehouseId, int productId, int previousStock, int newStock) {
+        buffer(new LogRecord.StockChanged(warehouseId, productId, newStock));
+    }
+
+    @Override
+    public void stockLockReleased() {
+        awaitPending();
+    }
+
+    private void buffer(LogRecord record) {
+        long position = log.appendBuffered(record);
+        if (log.getFsyncPolicy() == FsyncPolicy.ALWAYS) {
+            long[] pending = pendingPosition.get();
+            pending[0] = Math.max(pending[0], position);
+        }
+    }
+
+    private void awaitPending() {
+        if (log.getFsyncPolicy() != FsyncPolicy.ALWAYS) {
+            return;
+        }
+        long[] pending = pendingPosition.get();
+        if (pending[0] > 0) {
+            long position = pending[0];
+            pending[0] = 0;
+            log.awaitDurable(position);
+        }
+    }
+
+    private void restore(Snapshot snapshot) {
+        if (products != null) {
+            products.setProducts(snapshot.products());
+        }
+        orders.removeAllOrders();
+        for (Order order : snapshot.orders()) {
+            orders.addOrder(order);
+        }
+        snapshot.stockByWarehouse().forEach((warehouseId, stock) -> {
+            Warehouse warehouse = warehouses.get(warehouseId);
+            if (warehouse != null) {
+                stock.forEach(warehouse::updateStock);
+            }
+        });
+    }
+
+    private Optional<Path> latestSnapshot() throws IOException {
+        try (Stream<Path> files = Files.list(log.getDirectory())) {
+            return files.filter(ShopJournal::isSnapshot).max(Path::compareTo);
+        }
+    }
+
+    private static boolean isSnapshot(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+    }
+
+    private static String snapshotName(long segment) {
+        return String.format("%s%08d%s", SNAPSHOT_PREFIX, segment, SNAPSHOT_SUFFIX);
+    }
+
+    void apply(LogRecord record) {
+        switch (record) {
+            case LogRecord.OrderAdded added -> orders.addOrder(added.order());
+            case LogRecord.OrderRemoved removed -> orders.removeOrderById(removed.orderId());
+            case LogRecord.OrdersCleared cleared -> orders.removeAllOrders();
+            case LogRecord.StockChanged changed -> {
+                Warehouse warehouse = warehouses.get(changed.warehouseId());
+                if (warehouse != null) {
+                    warehouse.updateStock(changed.productId(), changed.stock());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        orders.removeOrderListener(this);
+        for (Warehouse warehouse : warehouses.values()) {
+            warehouse.removeStockListener(this);
+        }
+        log.close();
+    }
+}
@@ -0,0 +1,154 @@
+package org.stefanneuberger.persistence;
+
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.productRepo.Product;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Point-in-time image of catalog, stock and orders, taken right after the log was rolled to logSegment.
+// Layout: [int magic][int version][long logSegment] products, warehouses, orders [int crc32 of everything before].
+// Each section is a run of elements prefixed with a 1 byte and ends with a 0 byte, so it can be written
+// while iterating live collections without knowing their size upfront.
+public record Snapshot(long logSegment,
+                       List<Product> products,
+                       Map<Integer, Map<Integer, Integer>> stockByWarehouse,
+                       List<Order> orders) {
+
+    private static final int MAGIC = 0x534E4150;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    static void write(Path path, long logSegment, Iterable<Product> products,
+                      Map<Integer, ? extends Map<Integer, Integer>> stockByWarehouse,
+                      Iterable<Order> orders) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(channel);
+            writer.buffer.putInt(MAGIC).putInt(VERSION).putLong(logSegment);
+
+            for (Product product : products) {
+                writer.element(buffer -> LogCodec.writeProduct(product, buffer));
+            }
+            writer.endSection();
+
+            for (Map.Entry<Integer, ? extends Map<Integer, Integer>> warehouse : stockByWarehouse.entrySet()) {
+                writer.element(buffer -> buffer.putInt(warehouse.getKey()));
+                for (Map.Entry<Integer, Integer> stock : warehouse.getValue().entrySet()) {
+                    writer.element(buffer -> buffer.putInt(stock.getKey()).putInt(stock.getValue()));
+                }
+                writer.endSection();
+            }
+            writer.endSection();
+
+            for (Order order : orders) {
+                writer.element(buffer -> LogCodec.writeOrder(order, buffer));
+            }
+            writer.endSection();
+
+            writer.finish();
+            channel.force(true);
+        }
+    }
+
+    // The file is memory-mapped and decoded straight from the mapping.
+    static Snapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large to be mapped: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, buffer.limit() - 4));
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+                throw new IOException("Snapshot checksum mismatch: " + path);
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            long logSegment = buffer.getLong();
+
+            List<Product> products = new ArrayList<>();
+            while (buffer.get() != 0) {
+                products.add(LogCodec.readProduct(buffer));
+            }
+
+            Map<Integer, Map<Integer, Integer>> stockByWarehouse = new LinkedHashMap<>();
+            while (buffer.get() != 0) {
+                Map<Integer, Integer> stock = new LinkedHashMap<>();
+                stockByWarehouse.put(buffer.getInt(), stock);
+                while (buffer.get() != 0) {
+                    stock.put(buffer.getInt(), buffer.getInt());
+                }
+            }
+
+            List<Order> orders = new ArrayList<>();
+            while (buffer.get() != 0) {
+                orders.add(LogCodec.readOrder(buffer));
+            }
+            return new Snapshot(logSegment, products, stockByWarehouse, orders);
+        }
+    }
+
+    private interface Element {
+        void write(ByteBuffer buffer);
+    }
+
+    private static final class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void element(Element element) throws IOException {
+            int start = buffer.position();
+            try {
+                buffer.put((byte) 1);
+                element.write(buffer);
+            } catch (BufferOverflowException e) {
+                buffer.position(start);
+                if (start == 0) {
+                    throw new IOException("Snapshot element does not fit into the write buffer", e);
+                }
+                drain();
+                element(element);
+            }
+        }
+
+        void endSection() throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) 0);
+        }
+
+        void finish() throws IOException {
+            drain();
+            buffer.putInt((int) crc.getValue());
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package org.stefanneuberger.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only binary log split into numbered segment files (wal-00000001.log, ...).
+// Each record is framed as [int payload length][int crc32 of payload][payload].
+// Appends are copied into an in-memory buffer; a flush swaps that buffer with a spare one and writes
+// everything collected so far with a single FileChannel write, so many appends share one write and fsync.
+public class WriteAheadLog implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long MAX_SEGMENT_BYTES = 64L << 20;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final List<Long> replaySegments;
+
+    // appenders fill pending under appendLock, a flusher owns writing under flushLock.
+    // lock order is always flushLock before appendLock
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer writing = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private long appendedPosition;
+    private volatile long durablePosition;
+
+    private long segment;
+    private FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    private volatile boolean closed;
+
+    public WriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, Duration flushInterval) throws IOException {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        Files.createDirectories(directory);
+        this.replaySegments = listSegments(directory);
+        // never append to a segment that may end in a torn record, start a fresh one instead
+        this.segment = replaySegments.isEmpty() ? 1 : replaySegments.get(replaySegments.size() - 1) + 1;
+        this.channel = openSegment(segment);
+
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            this.flusher = null;
+        } else {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = Math.max(1, flushInterval.toMillis());
+            flusher.scheduleWithFixedDelay(this::backgroundFlush, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    // everything up to this log position has been forced to disk
+    public long getDurablePosition() {
+        return durablePosition;
+    }
+
+    // Reads every record that was in the log when it was opened, oldest first.
+    // A segment is read up to its first incomplete or corrupt record, which is where a crash cut it off.
+    public long replay(Consumer<LogRecord> consumer) throws IOException {
+        return replay(0, consumer);
+    }
+
+    // Same as replay(consumer), but skips the segments numbered below fromSegment.
+    public long replay(long fromSegment, Consumer<LogRecord> consumer) throws IOException {
+        long count = 0;
+        for (long replaySegment : replaySegments) {
+            if (replaySegment >= fromSegment) {
+                count += readSegment(segmentPath(replaySegment), consumer);
+            }
+        }
+        return count;
+    }
+
+    // Closes the current segment and continues in a new one. Everything appended before the call
+    // is in a segment numbered below the returned one.
+    public long roll() {
+        flushLock.lock();
+        try {
+            flush(true);
+            rollSegment();
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not roll the write-ahead log", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Deletes the segments numbered below the given one, used once a snapshot covers them.
+    public void deleteSegmentsBefore(long keepFromSegment) throws IOException {
+        for (long oldSegment : listSegments(directory)) {
+            if (oldSegment < keepFromSegment) {
+                Files.deleteIfExists(segmentPath(oldSegment));
+            }
+        }
+    }
+
+    // Returns the log position right after the record, with FsyncPolicy.ALWAYS only once it is on disk.
+    public long append(LogRecord record) {
+        long position = appendBuffered(record);
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            awaitDurable(position);
+        }
+        return position;
+    }
+
+    // Group commit: the first caller that finds its record not yet durable flushes everything buffered,
+    // callers arriving meanwhile wait on the flush lock and usually find their record already written.
+    public void awaitDurable(long position) {
+        if (durablePosition >= position) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            if (durablePosition < position) {
+                flush(true);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void sync() {
+        flushLock.lock();
+        try {
+            flush(true);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Buffers the record without waiting for it, whatever the policy; awaitDurable(position) waits later.
+    public long appendBuffered(LogRecord record) {
+        while (true) {
+            appendLock.lock();
+            try {
+                if (closed) {
+                    throw new IllegalStateException("Write-ahead log is closed");
+                }
+                int start = pending.position();
+                try {
+                    pending.position(start + 8);
+                    LogCodec.write(record, pending);
+                    int length = pending.position() - start - 8;
+                    crc.reset();
+                    crc.update(pending.slice(start + 8, length));
+                    pending.putInt(start, length);
+                    pending.putInt(start + 4, (int) crc.getValue());
+                    appendedPosition += 8 + length;
+                    return appendedPosition;
+                } catch (BufferOverflowException | IllegalArgumentException e) {
+                    pending.position(start);
+                    if (start == 0) {
+                        throw new IllegalArgumentException("Log record does not fit into the log buffer", e);
+                    }
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            // buffer is full: write it out (outside of appendLock to keep the lock order) and try again
+            flushLock.lock();
+            try {
+                flush(false);
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    // caller holds flushLock
+    private void flush(boolean force) {
+        long upTo;
+        appendLock.lock();
+        try {
+            ByteBuffer full = pending;
+            pending = writing;
+            writing = full;
+            upTo = appendedPosition;
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            writing.flip();
+            while (writing.hasRemaining()) {
+                channel.write(writing);
+            }
+            writing.clear();
+            if (force) {
+                channel.force(false);
+                durablePosition = upTo;
+            }
+            if (channel.size() >= MAX_SEGMENT_BYTES) {
+                rollSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the write-ahead log", e);
+        }
+    }
+
+    // caller holds flushLock
+    private void rollSegment() throws IOException {
+        channel.force(false);
+        channel.close();
+        segment++;
+        channel = openSegment(segment);
+    }
+
+    private void backgroundFlush() {
+        flushLock.lock();
+        try {
+            if (!closed) {
+                flush(fsyncPolicy == FsyncPolicy.PERIODIC);
+            }
+        } catch (UncheckedIOException e) {
+            // keep the flusher alive, the next round or close() retries and reports the failure
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flushLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            flush(true);
+            appendLock.lock();
+            try {
+                closed = true;
+            } finally {
+                appendLock.unlock();
+            }
+            channel.close();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static long readSegment(Path path, Consumer<LogRecord> consumer) throws IOException {
+        long count = 0;
+        CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (true) {
+                byte[] payload;
+                int expectedCrc;
+                try {
+                    int length = in.readInt();
+                    expectedCrc = in.readInt();
+                    if (length <= 0 || length > BUFFER_SIZE) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                checksum.reset();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != expectedCrc) {
+                    break;
+                }
+                consumer.accept(LogCodec.read(ByteBuffer.wrap(payload)));
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,239 @@
+package org.stefanneuberger.productRepo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Read-through cache of at most maximumSize products in front of a slower repository.
+// A hit is one ConcurrentHashMap lookup plus setting a reference bit, no lock is taken.
+// Misses are loaded through the ProductLoader and admitted under a lock; when the cache is full
+// a CLOCK hand sweeps the entries, clearing reference bits, and evicts the first one not used since
+// the last sweep, which approximates LRU without reordering anything on a hit.
+// Writes go to the source and invalidate the cached entry. Unknown ids are not cached.
+// A load that raced with an invalidation is not admitted. Invalidations are counted per stripe of ids,
+// so a write only turns away the loads of ids that share its stripe, not every miss in flight.
+public class CachingProductRepo implements ProductRepoSpec {
+
+    private static final int STRIPES = 64;
+
+    private final ProductRepoSpec source;
+    private final ProductLoader loader;
+    private final int maximumSize;
+    private final ConcurrentHashMap<Integer, Entry> entries;
+
+    // the clock ring is guarded by lock, the invalidation counters are only bumped under it
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Entry[] ring;
+    private int size;
+    private int hand;
+    // invalidations per stripe of ids, a load that raced with one of its stripe is not admitted
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingProductRepo(ProductRepoSpec source, int maximumSize) {
+        this(source, source::getProductById, maximumSize);
+    }
+
+    public CachingProductRepo(ProductRepoSpec source, ProductLoader loader, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be greater than zero");
+        }
+        this.source = source;
+        this.loader = loader;
+        this.maximumSize = maximumSize;
+        this.entries = new ConcurrentHashMap<>(Math.max(16, (int) (maximumSize / 0.75f) + 1));
+        this.ring = new Entry[maximumSize];
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : source.unwrap(type);
+    }
+
+    @Override
+    public Product getProductById(int id) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            // only write when the bit changes, so hot entries do not bounce their cache line between cores
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            hits.increment();
+            return entry.product;
+        }
+        misses.increment();
+        long seenInvalidations = invalidations.get(stripe(id));
+        Product product = loader.load(id);
+        if (product != null) {
+            admit(product, seenInvalidations);
+        }
+        return product;
+    }
+
+    // reads the whole catalog from the source, it is not cached
+    @Override
+    public List<Product> getProducts() {
+        return source.getProducts();
+    }
+
+    @Override
+    public void setProducts(List<Product> products) {
+        source.setProducts(products);
+        invalidateAll();
+    }
+
+    @Override
+    public Product addProduct(Product product) {
+        Product added = source.addProduct(product);
+        invalidate(product.id());
+        return added;
+    }
+
+    @Override
+    public Product updateProduct(Product product) {
+        Product updated = source.updateProduct(product);
+        invalidate(product.id());
+        return updated;
+    }
+
+    @Override
+    public void deleteProduct(int id) {
+        source.deleteProduct(id);
+        invalidate(id);
+    }
+
+    public void invalidate(int id) {
+        lock.lock();
+        try {
+            invalidations.incrementAndGet(stripe(id));
+            Entry entry = entries.remove(id);
+            if (entry != null) {
+                // keep the ring dense: move the last entry into the gap
+                size--;
+                Entry last = ring[size];
+                ring[size] = null;
+                if (last != entry) {
+                    ring[entry.slot] = last;
+                    last.slot = entry.slot;
+                }
+                if (hand >= size) {
+                    hand = 0;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            for (int i = 0; i < STRIPES; i++) {
+                invalidations.incrementAndGet(i);
+            }
+            entries.clear();
+            Arrays.fill(ring, 0, size, null);
+            size = 0;
+            hand = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private void admit(Product product, long seenInvalidations) {
+        lock.lock();
+        try {
+            if (invalidations.get(stripe(product.id())) != seenInvalidations || entries.containsKey(product.id())) {
+                return;
+            }
+            int slot;
+            if (size < maximumSize) {
+                slot = size++;
+            } else {
+                slot = evictOne();
+            }
+            Entry entry = new Entry(product, slot);
+            ring[slot] = entry;
+            entries.put(product.id(), entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int stripe(int id) {
+        // spread the bits so consecutive ids land on different stripes
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    // caller holds lock and the ring is full, returns the freed slot
+    private int evictOne() {
+        while (true) {
+            Entry candidate = ring[hand];
+            int slot = hand;
+            hand = (hand + 1) % maximumSize;
+            if (candidate.referenced) {
+                candidate.referenced = false;
+            } else {
+                entries.remove(candidate.product.id(), candidate);
+                evictions.increment();
+                return slot;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachingProductRepo{" +
+                "size=" + size() +
+                ", maximumSize=" + maximumSize +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+
+    private static final class Entry {
+        final Product product;
+        // slot in the clock ring, only touched under lock
+        int slot;
+        volatile boolean referenced;
+
+        Entry(Product product, int slot) {
+            this.product = product;
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package org.stefanneuberger.productRepo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Product catalog stored off-heap in a memory-mapped file of fixed-width slots.
+// The heap only holds the id -> slot offset table; Product objects are created when a slot is read.
+// Slots 0..count-1 are always in use: deleting a product moves the last slot into the gap,
+// so getProducts() is in slot order, which is insertion order until the first delete.
+// Like ProductRepo this class is not thread-safe for writes.
+public class MappedProductRepo implements ProductRepoSpec, Closeable {
+
+    public static final int MAX_NAME_BYTES = 112;
+
+    private static final int MAGIC = 0x50524F44;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int COUNT_OFFSET = 8;
+
+    // slot: [int id][byte flags][byte scale][short name length][long unscaled price][name bytes]
+    private static final int SLOT_SIZE = 128;
+    private static final int ID = 0;
+    private static final int FLAGS = 4;
+    private static final int SCALE = 5;
+    private static final int NAME_LENGTH = 6;
+    private static final int PRICE = 8;
+    private static final int NAME = 16;
+    private static final byte HAS_PRICE = 1;
+    private static final byte HAS_NAME = 2;
+
+    private static final int SLOTS_PER_CHUNK_SHIFT = 16;
+    private static final int SLOTS_PER_CHUNK = 1 << SLOTS_PER_CHUNK_SHIFT;
+    private static final long CHUNK_SIZE = (long) SLOTS_PER_CHUNK * SLOT_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private final IntIntIndex slotsById;
+    private final List<Product> productView = new ProductView();
+    private int count;
+
+    public MappedProductRepo(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() == 0;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (fresh) {
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(COUNT_OFFSET, 0);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a product catalog file: " + file);
+        }
+        this.count = header.getInt(COUNT_OFFSET);
+        this.slotsById = new IntIntIndex(count);
+
+        // rebuilding the offset table only reads the id column, the rest of the file stays on disk
+        for (int slot = 0; slot < count; slot++) {
+            slotsById.put(chunk(slot).getInt(offset(slot) + ID), slot);
+        }
+    }
+
+    // opens the file and replaces its catalog with the given products
+    public static MappedProductRepo open(Path file, List<Product> products) throws IOException {
+        MappedProductRepo repo = new MappedProductRepo(file);
+        repo.setProducts(products);
+        return repo;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // read-only view, every get(i) materializes the product from its slot
+    @Override
+    public List<Product> getProducts() {
+        return productView;
+    }
+
+    @Override
+    public void setProducts(List<Product> products) {
+        count = 0;
+        slotsById.clear();
+        for (Product product : products) {
+            addProduct(product);
+        }
+        header.putInt(COUNT_OFFSET, count);
+    }
+
+    @Override
+    public Product getProductById(int id) {
+        int slot = slotsById.get(id);
+        return slot == IntIntIndex.MISSING ? null : read(slot);
+    }
+
+    @Override
+    public Product addProduct(Product product) {
+        int slot = slotsById.get(product.id());
+        if (slot == IntIntIndex.MISSING) {
+            slot = count;
+            write(slot, product);
+            slotsById.put(product.id(), slot);
+            count++;
+            header.putInt(COUNT_OFFSET, count);
+        } else {
+            write(slot, product);
+        }
+        return product;
+    }
+
+    // updates in place, the product keeps its position
+    @Override
+    public Product updateProduct(Product product) {
+        return addProduct(product);
+    }
+
+    @Override
+    public void deleteProduct(int id) {
+        int slot = slotsById.remove(id);
+        if (slot == IntIntIndex.MISSING) {
+            return;
+        }
+        int last = count - 1;
+        if (slot != last) {
+            MappedByteBuffer target = chunk(slot);
+            MappedByteBuffer source = chunk(last);
+            target.put(offset(slot), source, offset(last), SLOT_SIZE);
+            slotsById.put(target.getInt(offset(slot) + ID), slot);
+        }
+        count = last;
+        header.putInt(COUNT_OFFSET, count);
+    }
+
+    // writes the dirty pages back to the file
+    public void force() {
+        header.force();
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private Product read(int slot) {
+        MappedByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        byte flags = chunk.get(offset + FLAGS);
+        String name = null;
+        if ((flags & HAS_NAME) != 0) {
+            byte[] bytes = new byte[chunk.getShort(offset + NAME_LENGTH)];
+            chunk.get(offset + NAME, bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+        }
+        BigDecimal price = null;
+        if ((flags & HAS_PRICE) != 0) {
+            price = BigDecimal.valueOf(chunk.getLong(offset + PRICE), chunk.get(offset + SCALE));
+        }
+        return new Product(chunk.getInt(offset + ID), name, price);
+    }
+
+    private void write(int slot, Product product) {
+        byte flags = 0;
+        byte[] name = null;
+        if (product.name() != null) {
+            name = product.name().getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_NAME_BYTES) {
+                throw new IllegalArgumentException("Product name is too long for a catalog slot");
+            }
+            flags |= HAS_NAME;
+        }
+        long unscaled = 0;
+        int scale = 0;
+        if (product.price() != null) {
+            scale = product.price().scale();
+            if (scale < Byte.MIN_VALUE || scale > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Price does not fit into a catalog slot");
+            }
+            try {
+                unscaled = product.price().unscaledValue().longValueExact();
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Price does not fit into a catalog slot", e);
+            }
+            flags |= HAS_PRICE;
+        }
+
+        MappedByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        chunk.putInt(offset + ID, product.id());
+        chunk.put(offset + FLAGS, flags);
+        chunk.put(offset + SCALE, (byte) scale);
+        chunk.putShort(offset + NAME_LENGTH, (short) (name == null ? 0 : name.length));
+        chunk.putLong(offset + PRICE, unscaled);
+        if (name != null) {
+            chunk.put(offset + NAME, name);
+        }
+    }
+
+    private MappedByteBuffer chunk(int slot) {
+        int index = slot >>> SLOTS_PER_CHUNK_SHIFT;
+        while (chunks.size() <= index) {
+            try {
+                // mapping past the end of the file grows it by one chunk
+                long position = HEADER_SIZE + chunks.size() * CHUNK_SIZE;
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, position, CHUNK_SIZE));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not map the product catalog", e);
+            }
+        }
+        return chunks.get(index);
+    }
+
+    private static int offset(int slot) {
+        return (slot & (SLOTS_PER_CHUNK - 1)) * SLOT_SIZE;
+    }
+
+    private final class ProductView extends AbstractList<Product> implements RandomAccess {
+        @Override
+        public Product get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return read(index);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+}
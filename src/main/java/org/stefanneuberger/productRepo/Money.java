@@ -0,0 +1,28 @@
+package org.stefanneuberger.productRepo;
+
+import java.math.BigDecimal;
+
+// Fixed-point money in cents. Prices and totals kept as long cents can be summed without allocating,
+// and convert back to exactly the BigDecimal amount they came from.
+public final class Money {
+
+    private static final int CENT_SCALE = 2;
+
+    private Money() {
+    }
+
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        try {
+            return amount.movePointRight(CENT_SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must be a whole number of cents: " + amount, e);
+        }
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, CENT_SCALE);
+    }
+}
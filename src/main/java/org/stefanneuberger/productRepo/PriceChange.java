@@ -0,0 +1,8 @@
+package org.stefanneuberger.productRepo;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// price is null while the product has no price and from the moment it was deleted
+public record PriceChange(Instant changedAt, BigDecimal price) {
+}
@@ -1,6 +1,57 @@
 package org.stefanneuberger.productRepo;
 
 import java.math.BigDecimal;
+import java.util.Objects;
 
-public record Product(int id, String name, BigDecimal price) {
+// Value class with the accessors, equals, hashCode and toString of a record Product(id, name, price).
+// It is not a record so the price can be converted to cents once, when the product is built: a price with
+// a fraction of a cent is rejected here, before it reaches a repository, and priceCents() is a field read.
+public final class Product {
+
+    private final int id;
+    private final String name;
+    private final BigDecimal price;
+    private final long priceCents;
+
+    public Product(int id, String name, BigDecimal price) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.priceCents = Money.toCents(price);
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public BigDecimal price() {
+        return price;
+    }
+
+    // price in cents for the long arithmetic of orders and analytics, 0 without a price
+    public long priceCents() {
+        return priceCents;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Product other
+                && id == other.id
+                && Objects.equals(name, other.name)
+                && Objects.equals(price, other.price);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Integer.hashCode(id) + Objects.hashCode(name)) + Objects.hashCode(price);
+    }
+
+    @Override
+    public String toString() {
+        return "Product[id=" + id + ", name=" + name + ", price=" + price + "]";
+    }
 }
@@ -0,0 +1,7 @@
+package org.stefanneuberger.productRepo;
+
+// Where a cache gets the products it does not hold, returns null for unknown ids
+@FunctionalInterface
+public interface ProductLoader {
+    Product load(int id);
+}
@@ -1,53 +1,85 @@
 package org.stefanneuberger.productRepo;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
-public class ProductRepo {
-    private List<Product> products = new ArrayList<Product>();
+public class ProductRepo implements ProductRepoSpec {
+    // primary key index, iteration order is insertion order
+    private final Map<Integer, Product> products;
+    // list view handed out by getProducts(), rebuilt lazily after a write
+    private List<Product> productList;
 
     public ProductRepo() {
+        this.products = new LinkedHashMap<>();
+    }
+
+    // presized for bulk loads, so the index does not rehash while it fills up
+    public ProductRepo(int expectedSize) {
+        this.products = new LinkedHashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
     }
 
     public ProductRepo(List<Product> products) {
-        this.products = new ArrayList<>(products);
+        this.products = new LinkedHashMap<>(Math.max(16, (int) (products.size() / 0.75f) + 1));
+        for (Product product : products) {
+            this.products.put(product.id(), product);
+        }
     }
 
+    @Override
     public List<Product> getProducts() {
-        return products;
+        if (productList == null) {
+            // read-only, an edit of this list would not reach the index
+            productList = Collections.unmodifiableList(new ArrayList<>(products.values()));
+        }
+        return productList;
     }
 
+    @Override
     public void setProducts(List<Product> products) {
-        this.products = products;
+        this.products.clear();
+        for (Product product : products) {
+            this.products.put(product.id(), product);
+        }
+        // rebuilt from the map: the caller may still change its list, and a later duplicate id wins
+        this.productList = null;
     }
 
+    @Override
     public Product getProductById(int id) {
-        return products.stream()
-                .filter(p -> p.id() == id)
-                .findFirst()
-                .orElse(null);
+        return products.get(id);
     }
 
+    @Override
     public Product addProduct(Product product) {
-        products.add(product);
+        products.put(product.id(), product);
+        productList = null;
         return product;
     }
 
+    @Override
     public Product updateProduct(Product product) {
-        products.removeIf(p -> p.id() == product.id());
-        products.add(product);
+        // remove first so the updated product moves to the end, like before
+        products.remove(product.id());
+        products.put(product.id(), product);
+        productList = null;
         return product;
     }
 
+    @Override
     public void deleteProduct(int id) {
-        products.removeIf(p -> p.id() == id);
+        if (products.remove(id) != null) {
+            productList = null;
+        }
     }
 
     @Override
     public String toString() {
         return "ProductRepo{" +
-                "products=" + products +
+                "products=" + getProducts() +
                 '}';
     }
 
@@ -55,11 +87,11 @@ public class ProductRepo {
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         ProductRepo that = (ProductRepo) o;
-        return Objects.equals(products, that.products);
+        return Objects.equals(getProducts(), that.getProducts());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(products);
+        return Objects.hashCode(getProducts());
     }
-}
\ No newline at end of file
+}
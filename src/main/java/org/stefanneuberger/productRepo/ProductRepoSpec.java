@@ -0,0 +1,22 @@
+package org.stefanneuberger.productRepo;
+
+import java.util.List;
+
+public interface ProductRepoSpec {
+    List<Product> getProducts();
+
+    void setProducts(List<Product> products);
+
+    Product getProductById(int id);
+
+    Product addProduct(Product product);
+
+    Product updateProduct(Product product);
+
+    void deleteProduct(int id);
+
+    // this repository or the first of the given type among the repositories it decorates, null if none is
+    default <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : null;
+    }
+}
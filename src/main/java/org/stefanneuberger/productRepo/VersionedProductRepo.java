@@ -0,0 +1,221 @@
+package org.stefanneuberger.productRepo;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Decorator that keeps the price history of every product and answers "what did it cost at time T".
+// Each product has a chain of versions in two primitive arrays (timestamp, price in cents), 16 bytes per
+// version, appended only when the price changes or the product is added or deleted.
+// Writers append under one lock and publish a new immutable view (arrays + count) through the map;
+// readers take the current view without locking and binary-search it. Appends only write past the count
+// of every published view, so a reader never sees a slot change under it.
+public class VersionedProductRepo implements ProductRepoSpec {
+
+    private static final long DELETED = Long.MIN_VALUE;
+    // a product without a price, kept apart from a price of 0.00
+    private static final long NO_PRICE = Long.MIN_VALUE + 1;
+
+    private final ProductRepoSpec delegate;
+    private final Clock clock;
+    private final Map<Integer, History> histories = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public VersionedProductRepo(ProductRepoSpec delegate) {
+        this(delegate, Clock.systemUTC());
+    }
+
+    // the products already in the delegate start their history now
+    public VersionedProductRepo(ProductRepoSpec delegate, Clock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        long now = clock.millis();
+        for (Product product : delegate.getProducts()) {
+            record(product.id(), now, centsOf(product));
+        }
+    }
+
+    public ProductRepoSpec getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : delegate.unwrap(type);
+    }
+
+    @Override
+    public List<Product> getProducts() {
+        return delegate.getProducts();
+    }
+
+    @Override
+    public void setProducts(List<Product> products) {
+        // everything that can fail is done before the delegate changes, so a catalog change always gets its history
+        long[] cents = new long[products.size()];
+        for (int i = 0; i < cents.length; i++) {
+            cents[i] = centsOf(products.get(i));
+        }
+        writeLock.lock();
+        try {
+            delegate.setProducts(products);
+            long now = clock.millis();
+            Set<Integer> present = new HashSet<>();
+            for (int i = 0; i < cents.length; i++) {
+                int id = products.get(i).id();
+                record(id, now, cents[i]);
+                present.add(id);
+            }
+            for (Integer id : histories.keySet()) {
+                if (!present.contains(id)) {
+                    record(id, now, DELETED);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Product getProductById(int id) {
+        return delegate.getProductById(id);
+    }
+
+    @Override
+    public Product addProduct(Product product) {
+        long cents = centsOf(product);
+        writeLock.lock();
+        try {
+            Product added = delegate.addProduct(product);
+            record(product.id(), clock.millis(), cents);
+            return added;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Product updateProduct(Product product) {
+        long cents = centsOf(product);
+        writeLock.lock();
+        try {
+            Product updated = delegate.updateProduct(product);
+            record(product.id(), clock.millis(), cents);
+            return updated;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteProduct(int id) {
+        writeLock.lock();
+        try {
+            delegate.deleteProduct(id);
+            if (histories.containsKey(id)) {
+                record(id, clock.millis(), DELETED);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // null if the product did not exist or had no price at that time
+    public BigDecimal getPriceAsOf(int productId, Instant at) {
+        History history = histories.get(productId);
+        if (history == null) {
+            return null;
+        }
+        int index = history.indexAsOf(at.toEpochMilli());
+        return index < 0 ? null : priceOf(history.cents[index]);
+    }
+
+    public List<PriceChange> getPriceHistory(int productId) {
+        History history = histories.get(productId);
+        if (history == null) {
+            return List.of();
+        }
+        List<PriceChange> changes = new ArrayList<>(history.count);
+        for (int i = 0; i < history.count; i++) {
+            changes.add(new PriceChange(Instant.ofEpochMilli(history.timestamps[i]), priceOf(history.cents[i])));
+        }
+        return changes;
+    }
+
+    public int getVersionCount(int productId) {
+        History history = histories.get(productId);
+        return history == null ? 0 : history.count;
+    }
+
+    private static long centsOf(Product product) {
+        return product.price() == null ? NO_PRICE : product.priceCents();
+    }
+
+    private static BigDecimal priceOf(long cents) {
+        return cents == DELETED || cents == NO_PRICE ? null : Money.fromCents(cents);
+    }
+
+    // caller holds writeLock
+    private void record(int productId, long timestamp, long cents) {
+        History history = histories.get(productId);
+        if (history == null) {
+            histories.put(productId, new History(new long[]{timestamp}, new long[]{cents}, 1));
+            return;
+        }
+        int last = history.count - 1;
+        if (history.cents[last] == cents) {
+            return;
+        }
+        // a clock that steps back must not break the ordering the binary search relies on
+        histories.put(productId, history.append(Math.max(timestamp, history.timestamps[last]), cents));
+    }
+
+    private static final class History {
+        final long[] timestamps;
+        final long[] cents;
+        final int count;
+
+        History(long[] timestamps, long[] cents, int count) {
+            this.timestamps = timestamps;
+            this.cents = cents;
+            this.count = count;
+        }
+
+        History append(long timestamp, long price) {
+            long[] newTimestamps = timestamps;
+            long[] newCents = cents;
+            if (count == timestamps.length) {
+                newTimestamps = Arrays.copyOf(timestamps, count * 2);
+                newCents = Arrays.copyOf(cents, count * 2);
+            }
+            newTimestamps[count] = timestamp;
+            newCents[count] = price;
+            return new History(newTimestamps, newCents, count + 1);
+        }
+
+        // last version at or before the timestamp, -1 if there is none
+        int indexAsOf(long timestamp) {
+            int low = 0;
+            int high = count - 1;
+            int found = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (timestamps[middle] <= timestamp) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package org.stefanneuberger.search;
+
+import org.stefanneuberger.productRepo.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory search over product names for type-ahead. Names are split into lower-case terms of letters
+// and digits. Every term has a sorted int array of product ids (its postings); a sorted term dictionary
+// finds all terms starting with a prefix, and a forward index product -> terms makes updates and deletes
+// cheap. Queries match products containing every word, the last word of the query may be incomplete:
+// "wire mou" finds "Wireless Mouse". A single word returns the products of its terms in dictionary order
+// (the exact term first, then longer terms alphabetically) and by id within a term, several words return
+// products by id. Either way the first k are found without collecting the whole candidate set.
+// Reads share a read lock, updates take the write lock.
+public class ProductSearchIndex {
+
+    private static final int[] NONE = new int[0];
+    // how many postings of the last word are collected before walking the complete words is cheaper
+    private static final int PREFIX_SCAN_BUDGET = 4096;
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Integer, String[]> termsByProduct = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // adds the product or replaces what was indexed for its id
+    public void index(Product product) {
+        String[] productTerms = tokenize(product.name());
+        lock.writeLock().lock();
+        try {
+            // only terms that came or went are touched, shifting a long postings array is the expensive part
+            String[] previousTerms = termsByProduct.put(product.id(), productTerms);
+            if (previousTerms != null) {
+                for (String term : previousTerms) {
+                    if (!contains(productTerms, term)) {
+                        removePosting(term, product.id());
+                    }
+                }
+            }
+            for (String term : productTerms) {
+                if (previousTerms == null || !contains(previousTerms, term)) {
+                    terms.computeIfAbsent(term, key -> new Postings()).add(product.id());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            termsByProduct.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ids of at most limit products matching the query, see the class comment for the order
+    public int[] search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        String[] words = tokenize(query);
+        if (words.length == 0) {
+            return NONE;
+        }
+        String prefix = words[words.length - 1];
+        lock.readLock().lock();
+        try {
+            if (words.length == 1) {
+                return prefixOnly(prefix, limit);
+            }
+            // walk the shortest postings of the complete words and check the rest on the product's own terms,
+            // so a common word like "usb" costs no more than the first matches it takes to fill the limit
+            Postings driver = null;
+            for (int i = 0; i < words.length - 1; i++) {
+                Postings postings = terms.get(words[i]);
+                if (postings == null) {
+                    return NONE;
+                }
+                if (driver == null || postings.size < driver.size) {
+                    driver = postings;
+                }
+            }
+            // a selective last word ("product 4711") has few postings in its range: collect those instead,
+            // the driver would be walked to its end without filling the limit
+            NavigableMap<String, Postings> prefixTerms = prefixRange(prefix);
+            int budget = Math.min(driver.size, PREFIX_SCAN_BUDGET);
+            if (countPostings(prefixTerms, budget) < budget) {
+                return collectFromPrefix(prefixTerms, words, limit);
+            }
+            int[] result = new int[Math.min(limit, driver.size)];
+            int found = 0;
+            for (int i = 0; i < driver.size && found < result.length; i++) {
+                int id = driver.ids[i];
+                if (matches(termsByProduct.get(id), words)) {
+                    result[found++] = id;
+                }
+            }
+            return Arrays.copyOf(result, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        List<String> tokens = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private NavigableMap<String, Postings> prefixRange(String prefix) {
+        return terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // number of postings in the range, counting stops at max
+    private static int countPostings(NavigableMap<String, Postings> range, int max) {
+        int count = 0;
+        for (Postings postings : range.values()) {
+            count += postings.size;
+            if (count >= max) {
+                return max;
+            }
+        }
+        return count;
+    }
+
+    // caller holds the read lock, the range is small, so all matches are sorted to return them by id
+    private int[] collectFromPrefix(NavigableMap<String, Postings> prefixTerms, String[] words, int limit) {
+        Set<Integer> matched = new HashSet<>();
+        for (Postings postings : prefixTerms.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                int id = postings.ids[i];
+                if (matches(termsByProduct.get(id), words)) {
+                    matched.add(id);
+                }
+            }
+        }
+        int[] result = matched.stream().mapToInt(Integer::intValue).sorted().toArray();
+        return result.length > limit ? Arrays.copyOf(result, limit) : result;
+    }
+
+    // caller holds the read lock
+    private int[] prefixOnly(String prefix, int limit) {
+        int[] result = new int[limit];
+        int found = 0;
+        // a product can match through several terms, only report it once
+        Set<Integer> seen = new HashSet<>();
+        for (Postings postings : prefixRange(prefix).values()) {
+            for (int i = 0; i < postings.size && found < limit; i++) {
+                int id = postings.ids[i];
+                if (seen.add(id)) {
+                    result[found++] = id;
+                }
+            }
+            if (found == limit) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    // caller holds the write lock
+    private void removeLocked(int productId) {
+        String[] productTerms = termsByProduct.remove(productId);
+        if (productTerms == null) {
+            return;
+        }
+        for (String term : productTerms) {
+            removePosting(term, productId);
+        }
+    }
+
+    // caller holds the write lock
+    private void removePosting(String term, int productId) {
+        Postings postings = terms.get(term);
+        if (postings != null && postings.remove(productId) && postings.size == 0) {
+            terms.remove(term);
+        }
+    }
+
+    // every complete word is a term of the product and one of its terms starts with the last word
+    private static boolean matches(String[] productTerms, String[] words) {
+        int last = words.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (!contains(productTerms, words[i])) {
+                return false;
+            }
+        }
+        for (String term : productTerms) {
+            if (term.startsWith(words[last])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(String[] productTerms, String word) {
+        for (String term : productTerms) {
+            if (term.equals(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // sorted product ids of one term; ids usually arrive in increasing order, which appends
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            int index = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0 && index < size) {
+                return;
+            }
+            if (index < 0) {
+                index = -index - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.stefanneuberger.search;
+
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepoSpec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Decorator that keeps a ProductSearchIndex in sync with the catalog, every write goes to the delegate
+// first and is then applied to the index. The products already in the delegate are indexed on construction.
+public class SearchableProductRepo implements ProductRepoSpec {
+
+    private final ProductRepoSpec delegate;
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    public SearchableProductRepo(ProductRepoSpec delegate) {
+        this.delegate = delegate;
+        for (Product product : delegate.getProducts()) {
+            index.index(product);
+        }
+    }
+
+    public ProductRepoSpec getDelegate() {
+        return delegate;
+    }
+
+    public ProductSearchIndex getIndex() {
+        return index;
+    }
+
+    // products whose name matches the query, the last word may be incomplete
+    public List<Product> search(String query, int limit) {
+        int[] ids = index.search(query, limit);
+        List<Product> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Product product = delegate.getProductById(id);
+            // a delete may land between the index lookup and this read
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : delegate.unwrap(type);
+    }
+
+    @Override
+    public List<Product> getProducts() {
+        return delegate.getProducts();
+    }
+
+    @Override
+    public void setProducts(List<Product> products) {
+        delegate.setProducts(products);
+        index.clear();
+        for (Product product : products) {
+            index.index(product);
+        }
+    }
+
+    @Override
+    public Product getProductById(int id) {
+        return delegate.getProductById(id);
+    }
+
+    @Override
+    public Product addProduct(Product product) {
+        Product added = delegate.addProduct(product);
+        index.index(product);
+        return added;
+    }
+
+    @Override
+    public Product updateProduct(Product product) {
+        Product updated = delegate.updateProduct(product);
+        index.index(product);
+        return updated;
+    }
+
+    @Override
+    public void deleteProduct(int id) {
+        delegate.deleteProduct(id);
+        index.remove(id);
+    }
+}
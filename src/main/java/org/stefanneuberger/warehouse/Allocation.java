@@ -0,0 +1,4 @@
+package org.stefanneuberger.warehouse;
+
+public record Allocation(int warehouseId, int productId, int quantity) {
+}
@@ -0,0 +1,33 @@
+package org.stefanneuberger.warehouse;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Decides which warehouses ship an order first. Only warehouses that currently hold the product are passed in.
+public interface AllocationPolicy {
+
+    List<Warehouse> rank(int productId, List<Warehouse> holders, WarehouseRegistry registry);
+
+    // fewest split shipments: the warehouses with the most stock go first
+    static AllocationPolicy mostStock() {
+        return (productId, holders, registry) -> holders.stream()
+                .sorted(Comparator.comparingInt((Warehouse w) -> w.getStockLevel(productId)).reversed()
+                        .thenComparingInt(registry::getPriority))
+                .toList();
+    }
+
+    // in the order the warehouses were registered
+    static AllocationPolicy priority() {
+        return (productId, holders, registry) -> holders.stream()
+                .sorted(Comparator.comparingInt(registry::getPriority))
+                .toList();
+    }
+
+    // spreads the work: the warehouses that shipped the least so far go first
+    static AllocationPolicy leastShipments() {
+        return (productId, holders, registry) -> holders.stream()
+                .sorted(Comparator.comparingLong((Warehouse w) -> registry.getShipmentCount(w.getWarehouseId()))
+                        .thenComparingInt(registry::getPriority))
+                .toList();
+    }
+}
@@ -0,0 +1,10 @@
+package org.stefanneuberger.warehouse;
+
+// Thrown when an order or reservation asks for more than is in stock.
+// Still an IllegalArgumentException, so callers that catch validation errors keep working.
+public class InsufficientStockException extends IllegalArgumentException {
+
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
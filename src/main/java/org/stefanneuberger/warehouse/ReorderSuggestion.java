@@ -0,0 +1,8 @@
+package org.stefanneuberger.warehouse;
+
+import java.time.Instant;
+
+// unitsPerDay is the recent sales velocity the suggested quantity was based on
+public record ReorderSuggestion(int warehouseId, int productId, int currentStock, int reorderThreshold,
+                                double unitsPerDay, int suggestedQuantity, Instant createdAt) {
+}
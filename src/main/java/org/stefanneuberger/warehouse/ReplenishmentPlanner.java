@@ -0,0 +1,169 @@
+package org.stefanneuberger.warehouse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Watches the stock changes of one warehouse and suggests reorders when a product falls to or below
+// its reorder threshold. Each decrement updates an exponentially weighted sales velocity of that product,
+// so the planner never scans the stock map after the initial check when it is attached.
+// Every decrement counts as a sale, including corrections made with updateStock.
+// The suggested quantity refills up to the threshold plus the expected sales during the coverage period.
+// A suggestion stays open until the stock is above the threshold again, e.g. after receiveGoods().
+public class ReplenishmentPlanner implements StockListener {
+
+    private static final double SECONDS_PER_DAY = 86_400;
+
+    private final Warehouse warehouse;
+    private final int defaultThreshold;
+    private final Duration coverage;
+    // velocity decays with e^(-t / tau), tau derived from the half-life
+    private final double tauSeconds;
+    private final Clock clock;
+    private final Map<Integer, ProductState> products = new ConcurrentHashMap<>();
+    private final Map<Integer, ReorderSuggestion> openSuggestions = new ConcurrentHashMap<>();
+    private final List<Consumer<ReorderSuggestion>> suggestionListeners = new CopyOnWriteArrayList<>();
+
+    private ReplenishmentPlanner(Warehouse warehouse, int defaultThreshold, Duration coverage,
+                                 Duration velocityHalfLife, Clock clock) {
+        if (defaultThreshold < 0) {
+            throw new IllegalArgumentException("Reorder threshold cannot be negative");
+        }
+        if (velocityHalfLife.isZero() || velocityHalfLife.isNegative()) {
+            throw new IllegalArgumentException("Half-life must be positive");
+        }
+        this.warehouse = warehouse;
+        this.defaultThreshold = defaultThreshold;
+        this.coverage = coverage;
+        this.tauSeconds = velocityHalfLife.toMillis() / 1000.0 / Math.log(2);
+        this.clock = clock;
+    }
+
+    public static ReplenishmentPlanner attach(Warehouse warehouse, int defaultThreshold) {
+        return attach(warehouse, defaultThreshold, Duration.ofDays(14), Duration.ofDays(7), Clock.systemUTC());
+    }
+
+    // Registers the listener once the planner is built, then checks the stock already in the warehouse.
+    public static ReplenishmentPlanner attach(Warehouse warehouse, int defaultThreshold, Duration coverage,
+                                              Duration velocityHalfLife, Clock clock) {
+        ReplenishmentPlanner planner = new ReplenishmentPlanner(warehouse, defaultThreshold, coverage, velocityHalfLife, clock);
+        warehouse.addStockListener(planner);
+        // the one full pass: products that are already low when planning starts
+        warehouse.getStockLevels().forEach(planner::check);
+        return planner;
+    }
+
+    public void addSuggestionListener(Consumer<ReorderSuggestion> listener) {
+        suggestionListeners.add(listener);
+    }
+
+    public void removeSuggestionListener(Consumer<ReorderSuggestion> listener) {
+        suggestionListeners.remove(listener);
+    }
+
+    public void setReorderThreshold(int productId, int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Reorder threshold cannot be negative");
+        }
+        state(productId).threshold = threshold;
+        check(productId, warehouse.getStockLevel(productId));
+    }
+
+    public int getReorderThreshold(int productId) {
+        ProductState state = products.get(productId);
+        return state == null || state.threshold < 0 ? defaultThreshold : state.threshold;
+    }
+
+    // recent sales per day, decayed to now
+    public double getUnitsPerDay(int productId) {
+        ProductState state = products.get(productId);
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.velocityAt(nowSeconds(), tauSeconds) * SECONDS_PER_DAY;
+        }
+    }
+
+    public ReorderSuggestion getSuggestion(int productId) {
+        return openSuggestions.get(productId);
+    }
+
+    public List<ReorderSuggestion> getOpenSuggestions() {
+        return List.copyOf(openSuggestions.values());
+    }
+
+    // Books incoming goods into the warehouse, which closes the open suggestion once the stock is high enough.
+    public void receiveGoods(int productId, int quantity) {
+        warehouse.increaseStock(productId, quantity);
+    }
+
+    // runs inside the warehouse's lock for the product, so changes of one product arrive one at a time
+    @Override
+    public void stockChanged(int warehouseId, int productId, int previousStock, int newStock) {
+        if (warehouseId != warehouse.getWarehouseId()) {
+            return;
+        }
+        if (newStock < previousStock) {
+            ProductState state = state(productId);
+            synchronized (state) {
+                state.recordSale(previousStock - newStock, nowSeconds(), tauSeconds);
+            }
+        }
+        check(productId, newStock);
+    }
+
+    private void check(int productId, int stock) {
+        int threshold = getReorderThreshold(productId);
+        if (stock > threshold) {
+            openSuggestions.remove(productId);
+            return;
+        }
+        if (openSuggestions.containsKey(productId)) {
+            return;
+        }
+        double unitsPerDay = getUnitsPerDay(productId);
+        double coverageDays = coverage.toMillis() / 1000.0 / SECONDS_PER_DAY;
+        long target = threshold + (long) Math.ceil(unitsPerDay * coverageDays);
+        int quantity = (int) Math.min(Integer.MAX_VALUE, Math.max(1, target - stock + 1));
+        ReorderSuggestion suggestion = new ReorderSuggestion(warehouse.getWarehouseId(), productId, stock,
+                threshold, unitsPerDay, quantity, clock.instant());
+        if (openSuggestions.putIfAbsent(productId, suggestion) == null) {
+            for (Consumer<ReorderSuggestion> listener : suggestionListeners) {
+                listener.accept(suggestion);
+            }
+        }
+    }
+
+    private ProductState state(int productId) {
+        return products.computeIfAbsent(productId, id -> new ProductState());
+    }
+
+    private double nowSeconds() {
+        return clock.millis() / 1000.0;
+    }
+
+    private static final class ProductState {
+        // -1 means the planner's default threshold
+        volatile int threshold = -1;
+        // units per second as of lastUpdate
+        private double velocity;
+        private double lastUpdate = Double.NaN;
+
+        void recordSale(int units, double now, double tau) {
+            velocity = velocityAt(now, tau) + units / tau;
+            lastUpdate = now;
+        }
+
+        double velocityAt(double now, double tau) {
+            if (Double.isNaN(lastUpdate)) {
+                return 0;
+            }
+            return velocity * Math.exp(-Math.max(0, now - lastUpdate) / tau);
+        }
+    }
+}
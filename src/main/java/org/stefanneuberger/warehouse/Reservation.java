@@ -0,0 +1,4 @@
+package org.stefanneuberger.warehouse;
+
+public record Reservation(long id, int productId, int quantity, long expiresAtMillis) {
+}
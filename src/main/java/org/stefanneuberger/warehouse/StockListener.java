@@ -0,0 +1,13 @@
+package org.stefanneuberger.warehouse;
+
+// Notified after every stock change while the product's stripe lock is still held,
+// so the notifications for one product arrive in the order the changes happened.
+// Listeners must be quick; calling back into the warehouse from the same thread is allowed.
+public interface StockListener {
+    void stockChanged(int warehouseId, int productId, int previousStock, int newStock);
+
+    // called on the same thread once the change's stripe lock is released again, for the slow part of
+    // handling a change (e.g. waiting for a disk write) that must not block other writers of the stripe
+    default void stockLockReleased() {
+    }
+}
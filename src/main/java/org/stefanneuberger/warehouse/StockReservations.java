@@ -0,0 +1,297 @@
+package org.stefanneuberger.warehouse;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Holds stock for carts and pending checkouts. Reserving takes the quantity out of the warehouse, so the
+// warehouse stock level is what is still available; confirm() keeps it taken, cancel() and expiry give it back.
+// Holds live in parallel primitive arrays indexed by slot (about 28 bytes each, no object per hold) and are
+// chained into the buckets of a hashed timer wheel, one tick thread expires a whole bucket at a time.
+// A reservation id is the slot plus a generation counter, so ids of reused slots do not match old holds.
+public class StockReservations implements Closeable {
+
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Warehouse warehouse;
+    private final Clock clock;
+    private final long tickMillis;
+    private final int wheelMask;
+    private final Map<Integer, AtomicInteger> reservedByProduct = new ConcurrentHashMap<>();
+
+    // everything below is guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int[] wheel;
+    private int[] productIds = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] deadlines = new long[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    // bucket chain while a slot is in use, free list while it is not.
+    // the head of a chain stores -2 - bucket as its previous slot
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int[] previous = new int[INITIAL_CAPACITY];
+    private int freeSlot = NONE;
+    private int usedSlots;
+    private int outstanding;
+    private long processedTick;
+
+    private ScheduledExecutorService ticker;
+
+    public StockReservations(Warehouse warehouse) {
+        this(warehouse, Duration.ofMillis(100), 4096, Clock.systemUTC());
+    }
+
+    // wheelSize is rounded up to a power of two, one rotation should cover the usual time to live
+    public StockReservations(Warehouse warehouse, Duration tick, int wheelSize, Clock clock) {
+        if (tick.toMillis() <= 0) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("Wheel size must be greater than zero");
+        }
+        this.warehouse = warehouse;
+        this.clock = clock;
+        this.tickMillis = tick.toMillis();
+        this.wheel = new int[wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1];
+        this.wheelMask = wheel.length - 1;
+        Arrays.fill(wheel, NONE);
+        this.processedTick = clock.millis() / tickMillis - 1;
+    }
+
+    // Starts the thread that expires holds every tick. Without it, call expire() yourself.
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-reservations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expire, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Warehouse getWarehouse() {
+        return warehouse;
+    }
+
+    public int getReservedStock(int productId) {
+        AtomicInteger reserved = reservedByProduct.get(productId);
+        return reserved == null ? 0 : reserved.get();
+    }
+
+    public int getAvailableStock(int productId) {
+        return warehouse.getStockLevel(productId);
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return outstanding;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long reserve(int productId, int quantity, Duration timeToLive) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        if (!warehouse.tryDecreaseStock(productId, quantity)) {
+            throw new InsufficientStockException(
+                String.format("Insufficient stock. Available: %d, Requested: %d",
+                    warehouse.getStockLevel(productId), quantity)
+            );
+        }
+        reservedByProduct.computeIfAbsent(productId, id -> new AtomicInteger()).addAndGet(quantity);
+        long deadline = clock.millis() + timeToLive.toMillis();
+        lock.lock();
+        try {
+            int slot = allocateSlot();
+            productIds[slot] = productId;
+            quantities[slot] = quantity;
+            deadlines[slot] = deadline;
+            link(slot);
+            outstanding++;
+            return ((long) generations[slot] << 32) | slot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // null if the reservation is unknown, confirmed, cancelled or expired
+    public Reservation getReservation(long reservationId) {
+        lock.lock();
+        try {
+            int slot = slotOf(reservationId);
+            return slot == NONE ? null : new Reservation(reservationId, productIds[slot], quantities[slot], deadlines[slot]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Turns the hold into a sale: the stock stays taken. Returns null if the hold is gone.
+    public Reservation confirm(long reservationId) {
+        Reservation reservation = remove(reservationId);
+        if (reservation != null) {
+            reservedByProduct.get(reservation.productId()).addAndGet(-reservation.quantity());
+        }
+        return reservation;
+    }
+
+    public boolean cancel(long reservationId) {
+        Reservation reservation = remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        release(reservation.productId(), reservation.quantity());
+        return true;
+    }
+
+    // Gives back the stock of every hold whose time is up, returns how many expired.
+    public int expire() {
+        long now = clock.millis();
+        long nowTick = now / tickMillis;
+        int expired = 0;
+        int[] expiredProducts = null;
+        int[] expiredQuantities = null;
+        lock.lock();
+        try {
+            // after a long pause one rotation still visits every bucket
+            long fromTick = Math.max(processedTick + 1, nowTick - wheelMask);
+            for (long tick = fromTick; tick <= nowTick; tick++) {
+                int slot = wheel[(int) (tick & wheelMask)];
+                while (slot != NONE) {
+                    int following = next[slot];
+                    if (deadlines[slot] <= now) {
+                        if (expiredProducts == null) {
+                            expiredProducts = new int[16];
+                            expiredQuantities = new int[16];
+                        } else if (expired == expiredProducts.length) {
+                            expiredProducts = Arrays.copyOf(expiredProducts, expired * 2);
+                            expiredQuantities = Arrays.copyOf(expiredQuantities, expired * 2);
+                        }
+                        expiredProducts[expired] = productIds[slot];
+                        expiredQuantities[expired] = quantities[slot];
+                        expired++;
+                        unlink(slot);
+                        freeSlot(slot);
+                    }
+                    slot = following;
+                }
+            }
+            processedTick = Math.max(processedTick, nowTick);
+        } finally {
+            lock.unlock();
+        }
+        // the warehouse fires its listeners, so give the stock back outside of our lock
+        for (int i = 0; i < expired; i++) {
+            release(expiredProducts[i], expiredQuantities[i]);
+        }
+        return expired;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    private Reservation remove(long reservationId) {
+        lock.lock();
+        try {
+            int slot = slotOf(reservationId);
+            if (slot == NONE) {
+                return null;
+            }
+            Reservation reservation = new Reservation(reservationId, productIds[slot], quantities[slot], deadlines[slot]);
+            unlink(slot);
+            freeSlot(slot);
+            return reservation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(int productId, int quantity) {
+        reservedByProduct.get(productId).addAndGet(-quantity);
+        warehouse.increaseStock(productId, quantity);
+    }
+
+    // caller holds lock
+    private int slotOf(long reservationId) {
+        int slot = (int) reservationId;
+        if (reservationId < 0 || slot >= usedSlots || generations[slot] != (int) (reservationId >>> 32)
+                || deadlines[slot] == Long.MIN_VALUE) {
+            return NONE;
+        }
+        return slot;
+    }
+
+    // caller holds lock
+    private int allocateSlot() {
+        if (freeSlot != NONE) {
+            int slot = freeSlot;
+            freeSlot = next[slot];
+            return slot;
+        }
+        if (usedSlots == productIds.length) {
+            int capacity = productIds.length * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+        }
+        return usedSlots++;
+    }
+
+    // caller holds lock
+    private void freeSlot(int slot) {
+        generations[slot]++;
+        deadlines[slot] = Long.MIN_VALUE;
+        next[slot] = freeSlot;
+        freeSlot = slot;
+        outstanding--;
+    }
+
+    // caller holds lock
+    private void link(int slot) {
+        // round up, so every hold in the bucket of a tick is due once that tick is reached
+        long tick = Math.max((deadlines[slot] + tickMillis - 1) / tickMillis, processedTick + 1);
+        int bucket = (int) (tick & wheelMask);
+        int head = wheel[bucket];
+        next[slot] = head;
+        previous[slot] = -2 - bucket;
+        if (head != NONE) {
+            previous[head] = slot;
+        }
+        wheel[bucket] = slot;
+    }
+
+    // caller holds lock
+    private void unlink(int slot) {
+        int before = previous[slot];
+        int after = next[slot];
+        if (before >= 0) {
+            next[before] = after;
+        } else {
+            wheel[-2 - before] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+    }
+}
@@ -2,18 +2,36 @@ package org.stefanneuberger.warehouse;
 
 import org.stefanneuberger.productRepo.Product;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class Warehouse {
-    private final Map<Integer, Integer> stock = new HashMap<>();
+    private static final int STRIPES = 64;
+
+    // reads are lock-free, every write to a product happens under that product's stripe lock
+    private final Map<Integer, Integer> stock;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final List<StockListener> listeners = new CopyOnWriteArrayList<>();
     private final String warehouseName;
     private final int warehouseId;
 
     public Warehouse(int warehouseId, String warehouseName) {
+        this(warehouseId, warehouseName, 16);
+    }
+
+    // presized for bulk loads, so the stock map does not rehash while it fills up
+    public Warehouse(int warehouseId, String warehouseName, int expectedProducts) {
         this.warehouseId = warehouseId;
         this.warehouseName = warehouseName;
+        this.stock = new ConcurrentHashMap<>(Math.max(16, expectedProducts));
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
     }
 
     public int getWarehouseId() {
@@ -24,6 +42,14 @@ public class Warehouse {
         return warehouseName;
     }
 
+    public void addStockListener(StockListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeStockListener(StockListener listener) {
+        listeners.remove(listener);
+    }
+
     public void addProduct(Product product, int initialStock) {
         if (product == null) {
             throw new IllegalArgumentException("Product cannot be null");
@@ -31,7 +57,14 @@ public class Warehouse {
         if (initialStock < 0) {
             throw new IllegalArgumentException("Initial stock cannot be negative");
         }
-        stock.put(product.id(), initialStock);
+        ReentrantLock lock = lockFor(product.id());
+        lock.lock();
+        try {
+            setStock(product.id(), stock.getOrDefault(product.id(), 0), initialStock);
+        } finally {
+            lock.unlock();
+            lockReleased(lock);
+        }
     }
 
     public boolean isInStock(int productId) {
@@ -42,8 +75,15 @@ public class Warehouse {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
-        int currentStock = stock.getOrDefault(productId, 0);
-        stock.put(productId, currentStock + quantity);
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            int currentStock = stock.getOrDefault(productId, 0);
+            setStock(productId, currentStock, Math.addExact(currentStock, quantity));
+        } finally {
+            lock.unlock();
+            lockReleased(lock);
+        }
         return true;
     }
 
@@ -51,25 +91,78 @@ public class Warehouse {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
-        int currentStock = stock.getOrDefault(productId, 0);
-        if (currentStock < quantity) {
-            throw new IllegalArgumentException("Insufficient stock");
+        if (!tryDecreaseStock(productId, quantity)) {
+            throw new InsufficientStockException("Insufficient stock");
         }
-        stock.put(productId, currentStock - quantity);
         return true;
     }
 
+    // atomic check-and-decrement, returns false and leaves the stock untouched if there is not enough
+    public boolean tryDecreaseStock(int productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            int currentStock = stock.getOrDefault(productId, 0);
+            if (currentStock < quantity) {
+                return false;
+            }
+            setStock(productId, currentStock, currentStock - quantity);
+            return true;
+        } finally {
+            lock.unlock();
+            lockReleased(lock);
+        }
+    }
+
     public void updateStock(int productId, int newStock) {
         if (newStock < 0) {
             throw new IllegalArgumentException("Stock cannot be negative");
         }
-        stock.put(productId, newStock);
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            setStock(productId, stock.getOrDefault(productId, 0), newStock);
+        } finally {
+            lock.unlock();
+            lockReleased(lock);
+        }
     }
 
     public int getStockLevel(int productId) {
         return stock.getOrDefault(productId, 0);
     }
 
+    // read-only view of product id -> stock, iterating it does not block writers
+    public Map<Integer, Integer> getStockLevels() {
+        return Collections.unmodifiableMap(stock);
+    }
+
+    // caller holds the product's stripe lock
+    private void setStock(int productId, int previousStock, int newStock) {
+        stock.put(productId, newStock);
+        for (StockListener listener : listeners) {
+            listener.stockChanged(warehouseId, productId, previousStock, newStock);
+        }
+    }
+
+    // only once the outermost hold is gone, a listener may change stock again while the lock is held
+    private void lockReleased(ReentrantLock lock) {
+        if (lock.getHoldCount() == 0) {
+            for (StockListener listener : listeners) {
+                listener.stockLockReleased();
+            }
+        }
+    }
+
+    private ReentrantLock lockFor(int productId) {
+        // spread the bits so consecutive product ids land on different stripes
+        int h = productId * 0x9E3779B9;
+        return locks[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
     @Override
     public String toString() {
         return String.format("Warehouse{id=%d, name='%s', items=%d}",
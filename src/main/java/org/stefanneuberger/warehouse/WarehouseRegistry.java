@@ -0,0 +1,122 @@
+package org.stefanneuberger.warehouse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Routes stock requests over several warehouses. A per-product index of total available stock and of the
+// warehouses holding it is kept up to date from stock change events, so an allocation only looks at the
+// warehouses that can actually ship and a shortage is rejected without touching any warehouse.
+public class WarehouseRegistry implements StockListener {
+
+    private final AllocationPolicy policy;
+    private final Map<Integer, Warehouse> warehouses = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> priorities = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> shipments = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> availableByProduct = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> holdersByProduct = new ConcurrentHashMap<>();
+
+    public WarehouseRegistry(AllocationPolicy policy) {
+        this.policy = policy;
+    }
+
+    // Register warehouses before they take orders, their current stock is read once here.
+    public synchronized void register(Warehouse warehouse) {
+        if (warehouses.putIfAbsent(warehouse.getWarehouseId(), warehouse) != null) {
+            throw new IllegalArgumentException("Warehouse is already registered");
+        }
+        priorities.put(warehouse.getWarehouseId(), priorities.size());
+        shipments.put(warehouse.getWarehouseId(), new AtomicLong());
+        warehouse.addStockListener(this);
+        warehouse.getStockLevels().forEach((productId, stock) ->
+                stockChanged(warehouse.getWarehouseId(), productId, 0, stock));
+    }
+
+    public List<Warehouse> getWarehouses() {
+        List<Warehouse> ordered = new ArrayList<>(warehouses.values());
+        ordered.sort((a, b) -> Integer.compare(getPriority(a), getPriority(b)));
+        return ordered;
+    }
+
+    public int getAvailableStock(int productId) {
+        AtomicLong available = availableByProduct.get(productId);
+        return available == null ? 0 : (int) Math.min(Integer.MAX_VALUE, available.get());
+    }
+
+    public int getPriority(Warehouse warehouse) {
+        return priorities.getOrDefault(warehouse.getWarehouseId(), Integer.MAX_VALUE);
+    }
+
+    public long getShipmentCount(int warehouseId) {
+        AtomicLong count = shipments.get(warehouseId);
+        return count == null ? 0 : count.get();
+    }
+
+    // Takes the whole quantity from one or more warehouses, or nothing: returns null if there is not enough.
+    public List<Allocation> tryAllocate(int productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        if (getAvailableStock(productId) < quantity) {
+            return null;
+        }
+        Set<Integer> holderIds = holdersByProduct.get(productId);
+        if (holderIds == null) {
+            return null;
+        }
+        List<Warehouse> holders = new ArrayList<>(holderIds.size());
+        for (int warehouseId : holderIds) {
+            holders.add(warehouses.get(warehouseId));
+        }
+
+        List<Allocation> allocations = new ArrayList<>(2);
+        int remaining = quantity;
+        for (Warehouse warehouse : policy.rank(productId, holders, this)) {
+            // stock may move between reading and taking it, so retry with the fresh level
+            while (remaining > 0) {
+                int take = Math.min(remaining, warehouse.getStockLevel(productId));
+                if (take <= 0) {
+                    break;
+                }
+                if (warehouse.tryDecreaseStock(productId, take)) {
+                    allocations.add(new Allocation(warehouse.getWarehouseId(), productId, take));
+                    remaining -= take;
+                }
+            }
+            if (remaining == 0) {
+                break;
+            }
+        }
+        if (remaining > 0) {
+            // lost a race against other orders, give back what was already taken
+            release(allocations);
+            return null;
+        }
+        for (Allocation allocation : allocations) {
+            shipments.get(allocation.warehouseId()).incrementAndGet();
+        }
+        return allocations;
+    }
+
+    public void release(List<Allocation> allocations) {
+        for (Allocation allocation : allocations) {
+            warehouses.get(allocation.warehouseId()).increaseStock(allocation.productId(), allocation.quantity());
+        }
+    }
+
+    @Override
+    public void stockChanged(int warehouseId, int productId, int previousStock, int newStock) {
+        availableByProduct.computeIfAbsent(productId, id -> new AtomicLong()).addAndGet((long) newStock - previousStock);
+        if (previousStock <= 0 && newStock > 0) {
+            holdersByProduct.computeIfAbsent(productId, id -> ConcurrentHashMap.newKeySet()).add(warehouseId);
+        } else if (previousStock > 0 && newStock <= 0) {
+            Set<Integer> holders = holdersByProduct.get(productId);
+            if (holders != null) {
+                holders.remove(warehouseId);
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package org.stefanneuberger.OrderListRepo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentOrderRepoTest {
+
+    private ConcurrentOrderRepo repo;
+    private Product mouse;
+    private Product keyboard;
+
+    @BeforeEach
+    void setUp() {
+        repo = new ConcurrentOrderRepo();
+        mouse = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+        keyboard = new Product(2, "Mechanical Keyboard", new BigDecimal("89.99"));
+    }
+
+    @Test
+    void addOrder_ForSameProduct_ShouldReplaceTheOrder() {
+        // Given
+        Order first = repo.addOrder(mouse, 1);
+
+        // When
+        Order second = repo.addOrder(mouse, 3);
+
+        // Then
+        assertEquals(List.of(second), repo.getOrders());
+        assertNull(repo.getOrderById(first.id()));
+        assertEquals(second, repo.getOrderByProductId(mouse.id()));
+    }
+
+    @Test
+    void updateOrder_WithOtherProduct_ShouldMoveTheOrderBetweenProducts() {
+        // Given
+        Order order = repo.addOrder(mouse, 1);
+
+        // When
+        repo.updateOrder(new Order(order.id(), keyboard, 2));
+
+        // Then
+        assertNull(repo.getOrderByProductId(mouse.id()));
+        assertEquals(2, repo.getOrderByProductId(keyboard.id()).quantity());
+        assertEquals(1, repo.size());
+    }
+
+    @Test
+    void getOrders_ShouldReuseTheSnapshotUntilTheNextWrite() {
+        // Given
+        repo.addOrder(mouse, 1);
+        repo.addOrder(keyboard, 1);
+
+        // When
+        List<Order> first = repo.getOrders();
+        List<Order> second = repo.getOrders();
+        repo.removeOrderById(1);
+        List<Order> afterRemove = repo.getOrders();
+
+        // Then
+        assertSame(first, second);
+        assertEquals(List.of(1, 2), first.stream().map(Order::id).toList());
+        assertEquals(List.of(2), afterRemove.stream().map(Order::id).toList());
+    }
+
+    @Test
+    void addOrder_ShouldNotifyListeners() {
+        // Given
+        List<String> events = new ArrayList<>();
+        repo.addOrderListener(new OrderListener() {
+            @Override
+            public void orderAdded(Order order) {
+                events.add("added " + order.id());
+            }
+
+            @Override
+            public void orderRemoved(Order order) {
+                events.add("removed " + order.id());
+            }
+
+            @Override
+            public void ordersCleared() {
+                events.add("cleared");
+            }
+        });
+
+        // When
+        repo.addOrder(mouse, 1);
+        repo.addOrder(mouse, 2);
+        repo.removeAllOrders();
+
+        // Then
+        assertEquals(List.of("added 1", "removed 1", "added 2", "cleared"), events);
+        assertEquals(1, repo.getNextId());
+    }
+
+    @Test
+    void addOrder_WithThrowingListener_ShouldNotifyTheOthersAndReleaseTheLock() throws Exception {
+        // Given a listener that throws before another one
+        List<String> events = new ArrayList<>();
+        repo.addOrderListener(new OrderListener() {
+            @Override
+            public void orderAdded(Order order) {
+                throw new IllegalStateException("broken listener");
+            }
+
+            @Override
+            public void orderRemoved(Order order) {
+            }
+
+            @Override
+            public void ordersCleared() {
+            }
+        });
+        repo.addOrderListener(new OrderListener() {
+            @Override
+            public void orderAdded(Order order) {
+                events.add("added " + order.id());
+            }
+
+            @Override
+            public void orderRemoved(Order order) {
+            }
+
+            @Override
+            public void ordersCleared() {
+            }
+
+            @Override
+            public void orderLockReleased() {
+                events.add("released");
+            }
+        });
+
+        // When
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> repo.addOrder(mouse, 1));
+
+        // Then the write is applied, every listener heard of it and another thread can write the product
+        assertEquals("broken listener", exception.getMessage());
+        assertEquals(List.of("added 1", "released"), events);
+        assertEquals(1, repo.size());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> other = executor.submit(() -> {
+            try {
+                repo.addOrder(mouse, 2);
+            } catch (IllegalStateException e) {
+                // the broken listener throws for this write too
+            }
+        });
+        other.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals(2, repo.getOrderByProductId(mouse.id()).quantity());
+    }
+
+    @Test
+    void addOrder_FromManyThreads_ShouldKeepOneOrderPerProductWithUniqueIds() throws Exception {
+        // Given 8 threads that each order every one of 500 products
+        int threads = 8;
+        List<Product> products = new ArrayList<>();
+        for (int id = 1; id <= 500; id++) {
+            products.add(new Product(id, "Product " + id, new BigDecimal("1.00")));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (Product product : products) {
+                    repo.addOrder(product, 1);
+                    repo.getOrderByProductId(product.id());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        List<Order> orders = repo.getOrders();
+        assertEquals(500, orders.size());
+        Set<Integer> productIds = new HashSet<>();
+        for (Order order : orders) {
+            assertTrue(productIds.add(order.product().id()));
+            assertSame(order, repo.getOrderByProductId(order.product().id()));
+        }
+        assertEquals(threads * 500 + 1, repo.getNextId());
+    }
+
+    @Test
+    void upserts_FromManyThreads_ShouldReachListenersInTheOrderTheyWereApplied() throws Exception {
+        // Given a listener that records every event, as the journal does, and upserts that replace orders
+        // by product and move order ids between 4 products
+        List<Consumer<OrderRepoSpec>> events = Collections.synchronizedList(new ArrayList<>());
+        repo.addOrderListener(new OrderListener() {
+            @Override
+            public void orderAdded(Order order) {
+                events.add(replica -> replica.addOrder(order));
+            }
+
+            @Override
+            public void orderRemoved(Order order) {
+                events.add(replica -> replica.removeOrderById(order.id()));
+            }
+
+            @Override
+            public void ordersCleared() {
+                events.add(OrderRepoSpec::removeAllOrders);
+            }
+        });
+        List<Product> products = List.of(mouse, keyboard,
+                new Product(3, "Monitor", new BigDecimal("199.00")),
+                new Product(4, "Headset", new BigDecimal("59.00")));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            results.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < 2_000; i++) {
+                    Product product = products.get(random.nextInt(products.size()));
+                    switch (random.nextInt(3)) {
+                        case 0 -> repo.addOrder(product, 1 + random.nextInt(5));
+                        case 1 -> repo.updateOrder(new Order(1 + random.nextInt(8), product, 1 + random.nextInt(5)));
+                        default -> repo.removeOrderById(1 + random.nextInt(8));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then replaying the events gives the state of the repository
+        OrderListRepo replica = new OrderListRepo();
+        for (Consumer<OrderRepoSpec> event : events) {
+            event.accept(replica);
+        }
+        List<Order> replayed = new ArrayList<>(replica.getOrders());
+        replayed.sort(Comparator.comparingInt(Order::id));
+        assertEquals(repo.getOrders(), replayed);
+    }
+}
@@ -147,4 +147,36 @@ class OrderListRepoTest {
         assertNull(orderListRepo.getOrderById(555));
         assertNull(orderListRepo.getOrderByProductId(555));
     }
+
+    @Test
+    @DisplayName("getNextId should not hand out an id again after the highest order was removed")
+    void getNextId_isMonotonic() {
+        assertEquals(104, orderListRepo.getNextId());
+
+        orderListRepo.removeOrderById(103);
+        Order added = orderListRepo.addOrder(new Product(4, "Ergo Stand", new BigDecimal("59.00")), 1);
+
+        assertEquals(104, added.id());
+        assertEquals(105, orderListRepo.getNextId());
+    }
+
+    @Test
+    @DisplayName("updateOrder should keep the product index consistent when an order changes its product")
+    void updateOrder_movesProductIndexWhenProductChanges() {
+        orderListRepo.updateOrder(new Order(101, p2, 4));
+
+        assertNull(orderListRepo.getOrderByProductId(p1.id()));
+        assertNull(orderListRepo.getOrderById(102));
+        assertEquals(101, orderListRepo.getOrderByProductId(p2.id()).id());
+        assertEquals(2, orderListRepo.getOrders().size());
+    }
+
+    @Test
+    @DisplayName("getOrders should hand out a list that cannot be modified")
+    void getOrders_isNotModifiable() {
+        List<Order> orders = orderListRepo.getOrders();
+
+        assertThrows(UnsupportedOperationException.class, () -> orders.remove(0));
+        assertEquals(3, orderListRepo.getOrders().size());
+    }
 }
@@ -0,0 +1,49 @@
+package org.stefanneuberger.OrderListRepo;
+
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.productRepo.Money;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTest {
+
+    @Test
+    void totalCents_ShouldMatchTotalPrice() {
+        String[] prices = {"29.99", "0.01", "1", "59.00", "1234567.89", "-3.50"};
+        for (String price : prices) {
+            Order order = new Order(1, new Product(1, "Product", new BigDecimal(price)), 7);
+
+            assertEquals(0, order.totalPrice().compareTo(Money.fromCents(order.totalCents())), price);
+        }
+    }
+
+    @Test
+    void totalCents_WithoutPrice_ShouldBeZero() {
+        Order order = new Order(1, new Product(1, "Product", null), 3);
+
+        assertEquals(0, order.totalCents());
+        assertEquals(BigDecimal.ZERO, order.totalPrice());
+    }
+
+    @Test
+    void product_WithFractionOfACent_ShouldThrowException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new Product(1, "Product", new BigDecimal("0.001")));
+
+        assertEquals("Amount must be a whole number of cents: 0.001", exception.getMessage());
+        assertEquals(100, new Product(1, "Product", new BigDecimal("1.000")).priceCents());
+    }
+
+    @Test
+    void product_ShouldCompareLikeARecord() {
+        Product product = new Product(1, "Product", new BigDecimal("2.50"));
+
+        assertEquals(new Product(1, "Product", new BigDecimal("2.50")), product);
+        assertEquals(new Product(1, "Product", new BigDecimal("2.50")).hashCode(), product.hashCode());
+        assertNotEquals(new Product(1, "Product", new BigDecimal("2.5")), product);
+        assertEquals("Product[id=1, name=Product, price=2.50]", product.toString());
+    }
+}
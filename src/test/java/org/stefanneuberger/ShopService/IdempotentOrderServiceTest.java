@@ -0,0 +1,247 @@
+package org.stefanneuberger.ShopService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.OrderListRepo.ConcurrentOrderRepo;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotentOrderServiceTest {
+
+    private final Product mouse = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+
+    private MutableClock clock;
+    private Warehouse warehouse;
+    private ShopService shopService;
+    private IdempotentOrderService orders;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        warehouse = new Warehouse(1, "Main Warehouse");
+        warehouse.addProduct(mouse, 10);
+        shopService = new ShopService(1, "Test Shop", warehouse, List.of(mouse));
+        shopService.setOrderRepo(new ConcurrentOrderRepo());
+        orders = new IdempotentOrderService(shopService, Duration.ofMinutes(10), 1024, clock);
+    }
+
+    @Test
+    void createOrder_WithReplayedKey_ShouldReturnTheFirstOrder() {
+        // When
+        Order first = orders.createOrder("request-1", mouse, 2);
+        Order retry = orders.createOrder("request-1", mouse, 2);
+
+        // Then
+        assertSame(first, retry);
+        assertEquals(8, warehouse.getStockLevel(1));
+        assertEquals(1, shopService.getShopOrders().getOrders().size());
+        assertEquals(1, orders.getReplays());
+    }
+
+    @Test
+    void createOrder_WithKeyUsedForADifferentOrder_ShouldThrowException() {
+        // Given
+        orders.createOrder("request-1", mouse, 2);
+
+        // When
+        IdempotencyKeyConflictException exception = assertThrows(IdempotencyKeyConflictException.class,
+                () -> orders.createOrder("request-1", mouse, 3));
+
+        // Then
+        assertEquals("Idempotency key was already used for a different order", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> orders.createOrder(" ", mouse, 1));
+    }
+
+    @Test
+    void createOrder_AfterTheKeyExpired_ShouldCreateANewOrder() {
+        // Given
+        Order first = orders.createOrder("request-1", mouse, 1);
+
+        // When
+        clock.advance(Duration.ofMinutes(10));
+        Order second = orders.createOrder("request-1", mouse, 1);
+
+        // Then
+        assertNotEquals(first.id(), second.id());
+        assertEquals(8, warehouse.getStockLevel(1));
+    }
+
+    @Test
+    void createOrder_AfterAFailedAttempt_ShouldTryAgain() {
+        // Given
+        assertThrows(IllegalArgumentException.class, () -> orders.createOrder("request-1", mouse, 11));
+
+        // When
+        warehouse.increaseStock(1, 1);
+        Order order = orders.createOrder("request-1", mouse, 11);
+
+        // Then
+        assertEquals(11, order.quantity());
+        assertEquals(0, warehouse.getStockLevel(1));
+    }
+
+    @Test
+    void createOrder_AfterAnError_ShouldForgetTheKey() {
+        // Given a first attempt that fails with an Error
+        boolean[] fail = {true};
+        ShopService failingService = new ShopService(1, "Test Shop", warehouse, List.of(mouse)) {
+            @Override
+            public Order createOrder(Product product, int quantity) {
+                if (fail[0]) {
+                    fail[0] = false;
+                    throw new StackOverflowError();
+                }
+                return super.createOrder(product, quantity);
+            }
+        };
+        failingService.setOrderRepo(new ConcurrentOrderRepo());
+        IdempotentOrderService failing = new IdempotentOrderService(failingService, Duration.ofMinutes(10), 1024, clock);
+        assertThrows(StackOverflowError.class, () -> failing.createOrder("request-1", mouse, 2));
+
+        // When
+        Order retry = failing.createOrder("request-1", mouse, 2);
+
+        // Then the retry is a new attempt instead of waiting for the failed one
+        assertEquals(2, retry.quantity());
+        assertEquals(8, warehouse.getStockLevel(1));
+        assertEquals(0, failing.getReplays());
+    }
+
+    @Test
+    void createOrder_ShouldKeepAtMostMaxKeys() {
+        // Given
+        warehouse.updateStock(1, 1_000);
+        IdempotentOrderService small = new IdempotentOrderService(shopService, Duration.ofMinutes(10), 64, clock);
+
+        // When
+        for (int i = 0; i < 500; i++) {
+            small.createOrder("request-" + i, mouse, 1);
+        }
+
+        // Then
+        assertTrue(small.size() <= 64);
+        assertEquals(500 - small.size(), small.getEvictions());
+        assertEquals(Duration.ZERO, small.getRetention());
+        assertEquals(Duration.ofMinutes(10), orders.getRetention());
+        assertThrows(IllegalArgumentException.class, () -> new IdempotentOrderService(shopService, Duration.ofMinutes(1), 10));
+    }
+
+    @Test
+    void createOrder_WhenTheStripeIsFull_ShouldKeepAKeyStillInFlight() throws Exception {
+        // Given a first attempt that is still running while 2000 random keys fill every stripe
+        warehouse.updateStock(1, 10_000);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ShopService slowService = new ShopService(1, "Test Shop", warehouse, List.of(mouse)) {
+            @Override
+            public Order createOrder(Product product, int quantity) {
+                if (quantity == 2) {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.createOrder(product, quantity);
+            }
+        };
+        slowService.setOrderRepo(new ConcurrentOrderRepo());
+        IdempotentOrderService small = new IdempotentOrderService(slowService, Duration.ofMinutes(10), 64, clock);
+        Order[] first = new Order[1];
+        Thread slow = new Thread(() -> first[0] = small.createOrder("checkout-slow", mouse, 2));
+        slow.start();
+        entered.await();
+        for (int i = 0; i < 2_000; i++) {
+            small.createOrder(UUID.nameUUIDFromBytes(("request-" + i).getBytes()).toString(), mouse, 1);
+        }
+
+        // When
+        release.countDown();
+        slow.join();
+        Order retry = small.createOrder("checkout-slow", mouse, 2);
+
+        // Then
+        assertSame(first[0], retry);
+        assertEquals(10_000 - 2 - 2_000, warehouse.getStockLevel(1));
+    }
+
+    @Test
+    void createOrder_WithSameKeyFromManyThreads_ShouldCreateOneOrder() throws Exception {
+        // Given
+        Set<Order> results = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                results.add(orders.createOrder("checkout-42", mouse, 3));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        // When
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals(7, warehouse.getStockLevel(1));
+        assertEquals(7, orders.getReplays());
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile long millis;
+
+        MutableClock(Instant start) {
+            this.millis = start.toEpochMilli();
+        }
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.stefanneuberger.ShopService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedShopServiceTest {
+
+    private final Product mouse = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+    private final Product keyboard = new Product(2, "Mechanical Keyboard", new BigDecimal("89.99"));
+    private final Product hub = new Product(3, "USB-C Hub", new BigDecimal("49.99"));
+
+    private ShardedShopService shop;
+
+    @BeforeEach
+    void setUp() {
+        shop = new ShardedShopService(2);
+        CompletableFuture.allOf(
+                shop.addProduct(mouse, 100),
+                shop.addProduct(keyboard, 5),
+                shop.addProduct(hub, 10)).join();
+    }
+
+    @AfterEach
+    void tearDown() {
+        shop.close();
+    }
+
+    @Test
+    void createOrder_ShouldUseTheProductsShardAndGiveUniqueIds() {
+        // When
+        Order first = shop.createOrder(mouse, 2).join();
+        Order second = shop.createOrder(keyboard, 1).join();
+        Order third = shop.createOrder(hub, 3).join();
+
+        // Then
+        assertEquals(List.of(2, 1, 4), List.of(first.id(), second.id(), third.id()));
+        assertEquals(third, shop.getOrder(4).join());
+        assertEquals(98, shop.getStockLevel(1).join());
+        assertEquals(List.of(second, first, third), shop.getOrders().join());
+        assertEquals(2 * 2999 + 8999 + 3 * 4999, shop.getRevenueCents().join());
+    }
+
+    @Test
+    void createOrder_WithInsufficientStock_ShouldCompleteExceptionally() {
+        // When
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> shop.createOrder(keyboard, 6).join());
+
+        // Then
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        assertEquals("Insufficient stock. Available: 5, Requested: 6", exception.getCause().getMessage());
+    }
+
+    @Test
+    void createOrder_FromManyThreads_ShouldNotOversell() throws Exception {
+        // Given
+        List<Thread> threads = new ArrayList<>();
+        List<CompletableFuture<Order>> orders = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 50; j++) {
+                    CompletableFuture<Order> order = shop.createOrder(mouse, 1);
+                    synchronized (orders) {
+                        orders.add(order);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // When
+        long created = orders.stream().filter(order -> !order.handle((o, e) -> e != null).join()).count();
+
+        // Then
+        assertEquals(100, created);
+        assertEquals(0, shop.getStockLevel(1).join());
+    }
+
+    @Test
+    void deleteOrder_ShouldRemoveItFromItsShard() {
+        // Given
+        Order order = shop.createOrder(hub, 1).join();
+
+        // When
+        shop.deleteOrder(order.id()).join();
+
+        // Then
+        assertNull(shop.getOrder(order.id()).join());
+        assertTrue(shop.getOrders().join().isEmpty());
+    }
+
+    @Test
+    void close_ShouldRejectNewCalls() {
+        // When
+        shop.close();
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, () -> shop.getProduct(1).join());
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void globalId_ShouldInterleaveTheShards() {
+        assertEquals(1, ShardedShopService.globalId(1, 0, 2));
+        assertEquals(2, ShardedShopService.globalId(1, 1, 2));
+        assertEquals(3, ShardedShopService.globalId(2, 0, 2));
+    }
+
+    @Test
+    void globalId_ThatDoesNotFitIntoAnInt_ShouldThrowInsteadOfWrapping() {
+        // Given a local id at the end of the int range
+        int localId = Integer.MAX_VALUE / 2 + 1;
+
+        // When / Then
+        assertEquals(Integer.MAX_VALUE, ShardedShopService.globalId(localId, 0, 2));
+        assertThrows(IllegalStateException.class, () -> ShardedShopService.globalId(localId, 1, 2));
+        assertThrows(IllegalStateException.class, () -> ShardedShopService.globalId(localId + 1, 0, 2));
+    }
+}
@@ -5,8 +5,14 @@ import org.junit.jupiter.api.Test;
 import org.stefanneuberger.OrderListRepo.Order;
 import org.stefanneuberger.productRepo.Product;
 import org.stefanneuberger.productRepo.ProductRepo;
+import org.stefanneuberger.warehouse.AllocationPolicy;
+import org.stefanneuberger.warehouse.InsufficientStockException;
+import org.stefanneuberger.warehouse.StockReservations;
+import org.stefanneuberger.warehouse.Warehouse;
+import org.stefanneuberger.warehouse.WarehouseRegistry;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -80,8 +86,8 @@ class ShopServiceTest {
         Product nonExistentProduct = new Product(999, "Non-existent", new BigDecimal("1.00"));
         
         // When & Then
-        IllegalArgumentException exception = assertThrows(
-            IllegalArgumentException.class,
+        ProductNotFoundException exception = assertThrows(
+            ProductNotFoundException.class,
             () -> shopService.createOrder(nonExistentProduct, 1)
         );
         assertEquals("Product does not exist", exception.getMessage());
@@ -169,4 +175,109 @@ class ShopServiceTest {
         assertEquals(1, shopService.getShopOrders().getOrders().size());
         assertEquals(testProduct.id(), shopService.getShopOrders().getOrders().get(0).product().id());
     }
-}
\ No newline at end of file
+
+    @Test
+    void createOrders_WithValidLines_ShouldCreateOneOrderPerProduct() {
+        // Given
+        Product anotherProduct = initialProducts.get(1);
+        List<OrderLine> lines = List.of(
+            new OrderLine(testProduct, 2),
+            new OrderLine(anotherProduct, 1),
+            new OrderLine(testProduct, 3)
+        );
+
+        // When
+        List<Order> created = shopService.createOrders(lines);
+
+        // Then
+        assertEquals(2, created.size());
+        assertEquals(5, shopService.getShopOrders().getOrderByProductId(testProduct.id()).quantity());
+        assertEquals(1, shopService.getShopOrders().getOrderByProductId(anotherProduct.id()).quantity());
+    }
+
+    @Test
+    void createOrders_WithInsufficientStock_ShouldReserveNothing() {
+        // Given
+        Warehouse warehouse = new Warehouse(1, "Test Warehouse");
+        warehouse.addProduct(testProduct, 10);
+        warehouse.addProduct(initialProducts.get(1), 1);
+        shopService.setWarehouse(warehouse);
+        List<OrderLine> lines = List.of(
+            new OrderLine(testProduct, 4),
+            new OrderLine(initialProducts.get(1), 2)
+        );
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> shopService.createOrders(lines)
+        );
+        assertEquals("Insufficient stock for product 2. Available: 1, Requested: 2", exception.getMessage());
+        assertEquals(10, warehouse.getStockLevel(testProduct.id()));
+        assertEquals(1, warehouse.getStockLevel(2));
+        assertTrue(shopService.getShopOrders().getOrders().isEmpty());
+    }
+
+    @Test
+    void createOrders_WithInvalidLine_ShouldCreateNothing() {
+        // Given
+        Product nonExistentProduct = new Product(999, "Non-existent", new BigDecimal("1.00"));
+        List<OrderLine> lines = List.of(new OrderLine(testProduct, 1), new OrderLine(nonExistentProduct, 1));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> shopService.createOrders(lines)
+        );
+        assertEquals("Product does not exist", exception.getMessage());
+        assertTrue(shopService.getShopOrders().getOrders().isEmpty());
+    }
+
+    @Test
+    void createOrder_WithWarehouseRegistry_ShouldSplitAcrossWarehouses() {
+        // Given
+        Warehouse first = new Warehouse(1, "First Warehouse");
+        Warehouse second = new Warehouse(2, "Second Warehouse");
+        first.addProduct(testProduct, 2);
+        second.addProduct(testProduct, 3);
+        WarehouseRegistry registry = new WarehouseRegistry(AllocationPolicy.priority());
+        registry.register(first);
+        registry.register(second);
+        shopService.setWarehouseRegistry(registry);
+
+        // When
+        Order order = shopService.createOrder(testProduct, 4);
+
+        // Then
+        assertEquals(4, order.quantity());
+        assertEquals(0, first.getStockLevel(testProduct.id()));
+        assertEquals(1, second.getStockLevel(testProduct.id()));
+        InsufficientStockException exception = assertThrows(
+            InsufficientStockException.class,
+            () -> shopService.createOrder(testProduct, 2)
+        );
+        assertEquals("Insufficient stock. Available: 1, Requested: 2", exception.getMessage());
+    }
+
+    @Test
+    void checkout_ShouldCreateOrderForTheReservedQuantity() {
+        // Given
+        Warehouse warehouse = new Warehouse(1, "Test Warehouse");
+        warehouse.addProduct(testProduct, 5);
+        StockReservations reservations = new StockReservations(warehouse);
+        long reservationId = reservations.reserve(testProduct.id(), 2, Duration.ofMinutes(15));
+
+        // When
+        Order order = shopService.checkout(reservations, reservationId);
+
+        // Then
+        assertEquals(2, order.quantity());
+        assertEquals(3, warehouse.getStockLevel(testProduct.id()));
+        assertEquals(0, reservations.getReservedStock(testProduct.id()));
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> shopService.checkout(reservations, reservationId)
+        );
+        assertEquals("Reservation does not exist or has expired", exception.getMessage());
+    }
+}
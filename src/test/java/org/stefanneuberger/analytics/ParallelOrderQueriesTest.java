@@ -0,0 +1,129 @@
+package org.stefanneuberger.analytics;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelOrderQueriesTest {
+
+    private static ForkJoinPool pool;
+
+    private List<Order> orders;
+    private ParallelOrderQueries queries;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void closePool() {
+        pool.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // small chunks so that even this test history is split across many tasks
+        queries = new ParallelOrderQueries(pool, 100);
+        Random random = new Random(7);
+        List<Product> products = new ArrayList<>();
+        for (int id = 1; id <= 50; id++) {
+            products.add(new Product(id, "Product " + id, BigDecimal.valueOf(random.nextInt(100_000), 2)));
+        }
+        orders = new ArrayList<>();
+        for (int id = 1; id <= 10_000; id++) {
+            orders.add(new Order(id, products.get(random.nextInt(products.size())), 1 + random.nextInt(20)));
+        }
+    }
+
+    @Test
+    void revenue_ShouldMatchSequentialBigDecimalSum() {
+        BigDecimal expected = BigDecimal.ZERO;
+        for (Order order : orders) {
+            expected = expected.add(order.totalPrice());
+        }
+
+        assertEquals(expected, queries.revenue(orders));
+    }
+
+    @Test
+    void revenue_WithPricesAtOtherScales_ShouldBeEqualByValueAtScaleTwo() {
+        List<Order> mixed = List.of(
+                new Order(1, new Product(1, "Cable", new BigDecimal("5")), 2),
+                new Order(2, new Product(2, "Adapter", new BigDecimal("2.5")), 1));
+
+        BigDecimal revenue = queries.revenue(mixed);
+
+        assertEquals(new BigDecimal("12.50"), revenue);
+        assertEquals(0, new BigDecimal("12.5").compareTo(revenue));
+        assertNotEquals(new BigDecimal("12.5"), revenue);
+    }
+
+    @Test
+    void revenueByProduct_ShouldMatchSequentialBigDecimalSums() {
+        Map<Integer, BigDecimal> expected = new TreeMap<>();
+        for (Order order : orders) {
+            expected.merge(order.product().id(), order.totalPrice(), BigDecimal::add);
+        }
+
+        assertEquals(expected, queries.revenueByProduct(orders));
+    }
+
+    @Test
+    void revenueByProduct_WithPricesAtOtherScales_ShouldMatchTotalPriceSums() {
+        // Given prices at scale 0, 1, 2 and 3, and a product without a price
+        String[] prices = {"5", "2.5", "19.99", "0.100", null};
+        Random random = new Random(11);
+        List<Order> mixed = new ArrayList<>();
+        for (int id = 1; id <= 1_000; id++) {
+            String price = prices[random.nextInt(prices.length)];
+            Product product = new Product(id % 7, "Product", price == null ? null : new BigDecimal(price));
+            mixed.add(new Order(id, product, 1 + random.nextInt(20)));
+        }
+        BigDecimal expected = BigDecimal.ZERO;
+        Map<Integer, BigDecimal> expectedByProduct = new TreeMap<>();
+        for (Order order : mixed) {
+            expected = expected.add(order.totalPrice());
+            expectedByProduct.merge(order.product().id(), order.totalPrice(), BigDecimal::add);
+        }
+
+        // When
+        BigDecimal revenue = queries.revenue(mixed);
+        Map<Integer, BigDecimal> revenueByProduct = queries.revenueByProduct(mixed);
+
+        // Then
+        assertEquals(0, expected.compareTo(revenue));
+        assertEquals(expectedByProduct.keySet(), revenueByProduct.keySet());
+        expectedByProduct.forEach((productId, sum) ->
+                assertEquals(0, sum.compareTo(revenueByProduct.get(productId)), "product " + productId));
+    }
+
+    @Test
+    void quantityHistogram_ShouldCountEveryOrderOnce() {
+        long[] histogram = queries.quantityHistogram(orders, 5, 3);
+
+        assertEquals(orders.size(), histogram[0] + histogram[1] + histogram[2]);
+        assertEquals(orders.stream().filter(o -> o.quantity() < 5).count(), histogram[0]);
+        assertEquals(orders.stream().filter(o -> o.quantity() >= 10).count(), histogram[2]);
+    }
+
+    @Test
+    void filter_ShouldKeepTheOriginalOrder() {
+        List<Order> expected = orders.stream().filter(o -> o.quantity() == 7).toList();
+
+        assertEquals(expected, queries.filter(orders, o -> o.quantity() == 7));
+    }
+}
@@ -0,0 +1,79 @@
+package org.stefanneuberger.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.OrderListRepo.OrderListRepo;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesAnalyticsTest {
+
+    private OrderListRepo orders;
+    private SalesAnalytics analytics;
+    private Product mouse;
+    private Product keyboard;
+    private Product hub;
+
+    @BeforeEach
+    void setUp() {
+        mouse = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+        keyboard = new Product(2, "Mechanical Keyboard", new BigDecimal("89.99"));
+        hub = new Product(3, "USB-C Hub", new BigDecimal("49.99"));
+        orders = new OrderListRepo(List.of(new Order(1, mouse, 2)));
+        analytics = SalesAnalytics.attach(orders);
+    }
+
+    @Test
+    void attach_ShouldCountExistingOrders() {
+        assertEquals(new BigDecimal("59.98"), analytics.getRevenue());
+        assertEquals(2, analytics.getUnitsSold());
+        assertEquals(1, analytics.getOrderCount());
+    }
+
+    @Test
+    void aggregates_ShouldFollowAddsUpdatesAndRemoves() {
+        // Given
+        orders.addOrder(keyboard, 1);
+        orders.addOrder(hub, 5);
+
+        // When the mouse order is replaced and the keyboard order removed
+        orders.addOrder(mouse, 3);
+        orders.removeOrderById(2);
+
+        // Then
+        BigDecimal expected = BigDecimal.ZERO;
+        for (Order order : orders.getOrders()) {
+            expected = expected.add(order.totalPrice());
+        }
+        assertEquals(0, expected.compareTo(analytics.getRevenue()));
+        assertEquals(8, analytics.getUnitsSold());
+        assertEquals(2, analytics.getOrderCount());
+        assertEquals(0, analytics.getProductSales(keyboard.id()).unitsSold());
+        assertEquals(new ProductSales(mouse.id(), 3, 8997), analytics.getProductSales(mouse.id()));
+    }
+
+    @Test
+    void topProducts_ShouldRankByUnitsAndByRevenue() {
+        orders.addOrder(keyboard, 3);
+        orders.addOrder(hub, 4);
+
+        assertEquals(List.of(hub.id(), keyboard.id()),
+                analytics.topProductsByUnits(2).stream().map(ProductSales::productId).toList());
+        assertEquals(List.of(keyboard.id(), hub.id(), mouse.id()),
+                analytics.topProductsByRevenue(5).stream().map(ProductSales::productId).toList());
+    }
+
+    @Test
+    void ordersCleared_ShouldResetEverything() {
+        orders.removeAllOrders();
+
+        assertEquals(0, analytics.getRevenueCents());
+        assertEquals(0, analytics.getUnitsSold());
+        assertTrue(analytics.topProductsByUnits(10).isEmpty());
+    }
+}
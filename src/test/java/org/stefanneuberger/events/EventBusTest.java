@@ -0,0 +1,128 @@
+package org.stefanneuberger.events;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.ShopService.ShopService;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBusTest {
+
+    private EventBus eventBus;
+    private Product product;
+    private Warehouse warehouse;
+    private ShopService shopService;
+
+    @BeforeEach
+    void setUp() {
+        eventBus = new EventBus();
+        product = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+        warehouse = new Warehouse(1, "Main Warehouse");
+        warehouse.addProduct(product, 10);
+        shopService = new ShopService(1, "Test Shop", warehouse, List.of(product));
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventBus.close();
+    }
+
+    @Test
+    void shopService_ShouldPublishOrderAndStockEventsInOrder() {
+        // Given
+        List<ShopEvent> received = Collections.synchronizedList(new ArrayList<>());
+        eventBus.subscribe("test", (event, endOfBatch) -> received.add(event), 64);
+        warehouse.addStockListener(eventBus);
+        shopService.setEventBus(eventBus);
+
+        // When
+        int orderId = shopService.createOrder(product, 2).id();
+        shopService.updateOrder(orderId, 3, product);
+        shopService.deleteOrder(orderId);
+        shopService.deleteOrder(orderId);
+        eventBus.close();
+
+        // Then
+        assertEquals(4, received.size());
+        assertEquals(new ShopEvent.StockChanged(1, 1, 10, 8), received.get(0));
+        assertInstanceOf(ShopEvent.OrderCreated.class, received.get(1));
+        assertEquals(3, ((ShopEvent.OrderUpdated) received.get(2)).order().quantity());
+        assertEquals(new ShopEvent.OrderDeleted(orderId), received.get(3));
+    }
+
+    @Test
+    void publish_WithSlowSubscriber_ShouldDropInsteadOfBlocking() throws Exception {
+        // Given a subscriber that is stuck on its first event
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstEvent = new CountDownLatch(1);
+        List<ShopEvent> received = Collections.synchronizedList(new ArrayList<>());
+        EventBus.Subscription slow = eventBus.subscribe("slow", (event, endOfBatch) -> {
+            received.add(event);
+            firstEvent.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 4);
+        eventBus.publish(new ShopEvent.OrderDeleted(0));
+        assertTrue(firstEvent.await(5, TimeUnit.SECONDS));
+
+        // When
+        long start = System.nanoTime();
+        for (int i = 1; i <= 100; i++) {
+            eventBus.publish(new ShopEvent.OrderDeleted(i));
+        }
+        long elapsed = System.nanoTime() - start;
+        release.countDown();
+        eventBus.close();
+
+        // Then the first event still holds its slot while it is handled, three more fit and the rest was dropped
+        assertTrue(elapsed < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(97, slow.getDropped());
+        assertEquals(4, slow.getDelivered());
+        // and it is told about the gap after the events published before it
+        assertEquals(5, received.size());
+        assertEquals(new ShopEvent.OrderDeleted(3), received.get(3));
+        assertEquals(new ShopEvent.EventsDropped(97), received.get(4));
+    }
+
+    @Test
+    void subscriber_ShouldSeeBatchEndsAndSurviveFailures() throws Exception {
+        // Given
+        CountDownLatch done = new CountDownLatch(1000);
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        EventBus.Subscription subscription = eventBus.subscribe("failing", (event, endOfBatch) -> {
+            int id = ((ShopEvent.OrderDeleted) event).orderId();
+            done.countDown();
+            if (id % 10 == 0) {
+                throw new IllegalStateException("broken subscriber");
+            }
+            seen.add(id);
+        }, 2048);
+
+        // When
+        for (int i = 1; i <= 1000; i++) {
+            eventBus.publish(new ShopEvent.OrderDeleted(i));
+        }
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        eventBus.close();
+        assertEquals(900, seen.size());
+        assertEquals(100, subscription.getFailed());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1) < seen.get(i));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.stefanneuberger.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.OrderListRepo.OrderListener;
+import org.stefanneuberger.ShopService.ShopService;
+import org.stefanneuberger.metrics.InstrumentedProductRepo;
+import org.stefanneuberger.metrics.Metrics;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.search.SearchableProductRepo;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShopHttpServerTest {
+
+    private ShopHttpServer server;
+    private ShopService shopService;
+    private Warehouse warehouse;
+    private HttpClient client;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<Product> products = List.of(
+                new Product(1, "Wireless Mouse", new BigDecimal("29.99")),
+                new Product(2, "Cable \"Pro\" Kit", new BigDecimal("19.99")));
+        warehouse = new Warehouse(1, "Main Warehouse");
+        warehouse.addProduct(products.get(0), 100);
+        warehouse.addProduct(products.get(1), 0);
+        shopService = new ShopService(1, "Test Shop", warehouse, products);
+        server = new ShopHttpServer(shopService, new InetSocketAddress("localhost", 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:" + server.getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void getProducts_ShouldListProductsWithStock() throws Exception {
+        HttpResponse<String> response = get("/products");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("[{\"id\":1,\"name\":\"Wireless Mouse\",\"price\":29.99,\"stock\":100},"
+                + "{\"id\":2,\"name\":\"Cable \\\"Pro\\\" Kit\",\"price\":19.99,\"stock\":0}]", response.body());
+    }
+
+    @Test
+    void searchProducts_ShouldReturnMatchesWhenSearchIsEnabled() throws Exception {
+        assertEquals(501, get("/products?q=mou").statusCode());
+
+        // behind a decorator, the server finds the search through unwrap
+        shopService.setProductRepo(new InstrumentedProductRepo(new SearchableProductRepo(shopService.getProductRepo()), new Metrics()));
+        HttpResponse<String> response = get("/products?q=wireless%20mou&limit=5");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("[{\"id\":1,\"name\":\"Wireless Mouse\",\"price\":29.99,\"stock\":100}]", response.body());
+        assertEquals("[]", get("/products?q=keyboard").body());
+    }
+
+    @Test
+    void getStock_ShouldReturnStockLevel() throws Exception {
+        HttpResponse<String> response = get("/stock/1");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"productId\":1,\"stock\":100}", response.body());
+        assertEquals(404, get("/stock").statusCode());
+        HttpRequest delete = HttpRequest.newBuilder(URI.create(baseUrl + "/stock/1")).DELETE().build();
+        assertEquals(405, client.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void postOrder_ShouldCreateOrderAndReduceStock() throws Exception {
+        HttpResponse<String> response = post("productId=1&quantity=3");
+
+        assertEquals(201, response.statusCode());
+        assertEquals("{\"id\":1,\"productId\":1,\"quantity\":3,\"total\":89.97}", response.body());
+        assertEquals(97, warehouse.getStockLevel(1));
+    }
+
+    @Test
+    void postOrder_WithIdempotencyKey_ShouldCreateTheOrderOnce() throws Exception {
+        HttpResponse<String> first = post("productId=1&quantity=3", "order-1");
+        HttpResponse<String> retry = post("productId=1&quantity=3", "order-1");
+
+        assertEquals(201, retry.statusCode());
+        assertEquals(first.body(), retry.body());
+        assertEquals(97, warehouse.getStockLevel(1));
+        assertEquals(422, post("productId=1&quantity=4", "order-1").statusCode());
+    }
+
+    @Test
+    void postOrder_WithInsufficientStockOrUnknownProduct_ShouldBeRejected() throws Exception {
+        assertEquals(409, post("productId=2&quantity=1").statusCode());
+        assertEquals(404, post("productId=9&quantity=1").statusCode());
+        assertEquals(400, post("productId=1&quantity=0").statusCode());
+    }
+
+    @Test
+    void postOrder_WithUnexpectedFailure_ShouldAnswer500() throws Exception {
+        // Given an order listener that fails
+        shopService.getShopOrders().addOrderListener(new OrderListener() {
+            @Override
+            public void orderAdded(Order order) {
+                throw new IllegalStateException("journal is closed");
+            }
+
+            @Override
+            public void orderRemoved(Order order) {
+            }
+
+            @Override
+            public void ordersCleared() {
+            }
+        });
+
+        // When
+        HttpResponse<String> response = post("productId=1&quantity=1");
+
+        // Then
+        assertEquals(500, response.statusCode());
+        assertEquals("{\"error\":\"Internal server error\"}", response.body());
+    }
+
+    @Test
+    void postOrder_ConcurrentRequests_ShouldNeverOversell() {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            responses.add(client.sendAsync(postRequest("productId=1&quantity=1"), HttpResponse.BodyHandlers.ofString()));
+        }
+
+        long created = responses.stream().map(CompletableFuture::join).filter(r -> r.statusCode() == 201).count();
+
+        assertEquals(100, created);
+        assertEquals(0, warehouse.getStockLevel(1));
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String form) throws Exception {
+        return client.send(postRequest(form), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String form, String idempotencyKey) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("Idempotency-Key", idempotencyKey)
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest postRequest(String form) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/orders"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+}
@@ -0,0 +1,151 @@
+package org.stefanneuberger.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepo;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogImporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void importCsv_ShouldLoadProductsAndStock() throws IOException {
+        // Given
+        Path file = directory.resolve("catalog.csv");
+        Files.writeString(file, """
+                id,name,price,stock
+                1,Wireless Mouse,29.99,50
+                2,"Keyboard, mechanical",89.9,25\r
+                3,"USB-C ""Pro"" Hub",49,1
+                4,Broken,12.345,3
+                5,Missing stock,1.00,
+                6,Cable Management Kit,19.99,0""", StandardCharsets.UTF_8);
+        ProductRepo products = new ProductRepo();
+        Warehouse warehouse = new Warehouse(1, "Main Warehouse");
+
+        // When
+        ImportStats stats = new CatalogImporter(products, warehouse).importCsv(file);
+
+        // Then
+        assertEquals(4, stats.rows());
+        assertEquals(2, stats.rejectedRows());
+        assertEquals(new Product(1, "Wireless Mouse", new BigDecimal("29.99")), products.getProductById(1));
+        assertEquals("Keyboard, mechanical", products.getProductById(2).name());
+        assertEquals(8990, products.getProductById(2).priceCents());
+        assertEquals("USB-C \"Pro\" Hub", products.getProductById(3).name());
+        assertEquals(new BigDecimal("49.00"), products.getProductById(3).price());
+        assertNull(products.getProductById(4));
+        assertEquals(50, warehouse.getStockLevel(1));
+        assertEquals(0, warehouse.getStockLevel(6));
+        assertTrue(warehouse.getStockLevels().containsKey(6));
+    }
+
+    @Test
+    void importCsv_WithLinesAcrossBufferBoundaries_ShouldLoadEveryRow() throws IOException {
+        // Given more than one read buffer of rows
+        Path file = directory.resolve("large.csv");
+        int rows = 100_000;
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int id = 1; id <= rows; id++) {
+                writer.write(id + ",Product number " + id + "," + (id % 1000) + "." + (id % 100 / 10) + (id % 10) + "," + id + "\n");
+            }
+        }
+        ProductRepo products = new ProductRepo((int) CatalogImporter.estimateRows(file));
+        Warehouse warehouse = new Warehouse(1, "Main Warehouse", rows);
+
+        // When
+        ImportStats stats = new CatalogImporter(products, warehouse).importCsv(file);
+
+        // Then
+        assertEquals(rows, stats.rows());
+        assertEquals(rows, products.getProducts().size());
+        assertEquals(345 * 100 + 45, products.getProductById(12345).priceCents());
+        assertEquals(99_999, warehouse.getStockLevel(99_999));
+        assertTrue(stats.rowsPerSecond() > 0);
+    }
+
+    @Test
+    void writeBinary_ShouldRoundTripThroughImportBinary() throws IOException {
+        // Given
+        ProductRepo source = new ProductRepo();
+        Warehouse sourceStock = new Warehouse(1, "Main Warehouse");
+        for (int id = 1; id <= 50_000; id++) {
+            Product product = new Product(id, id % 7 == 0 ? null : "Produkt " + id + " äöü", new BigDecimal(id + ".50"));
+            source.addProduct(product);
+            sourceStock.addProduct(product, id % 100);
+        }
+        Path file = directory.resolve("catalog.bin");
+        CatalogImporter.writeBinary(file, source.getProducts(), sourceStock);
+        ProductRepo products = new ProductRepo((int) CatalogImporter.estimateRows(file));
+        Warehouse warehouse = new Warehouse(1, "Main Warehouse", 50_000);
+
+        // When
+        ImportStats stats = new CatalogImporter(products, warehouse).importBinary(file);
+
+        // Then
+        assertEquals(50_000, CatalogImporter.estimateRows(file));
+        assertEquals(50_000, stats.rows());
+        assertEquals(source.getProducts(), products.getProducts());
+        assertEquals(sourceStock.getStockLevels(), warehouse.getStockLevels());
+    }
+
+    @Test
+    void importBinary_WithInvalidRows_ShouldSkipAndCountThem() throws IOException {
+        // Given rows with negative stock, a negative price and a negative id between two valid ones
+        ByteBuffer buffer = ByteBuffer.allocate(256)
+                .putInt(CatalogImporter.MAGIC).putInt(CatalogImporter.VERSION).putLong(5);
+        binaryRow(buffer, 1, 2999, 50, "Wireless Mouse");
+        binaryRow(buffer, 2, 8999, -1, "Keyboard");
+        binaryRow(buffer, 3, -100, 5, "USB-C Hub");
+        binaryRow(buffer, -4, 100, 5, null);
+        binaryRow(buffer, 5, 1999, 0, "Cable Management Kit");
+        Path file = directory.resolve("catalog.bin");
+        Files.write(file, Arrays.copyOf(buffer.array(), buffer.position()));
+        ProductRepo products = new ProductRepo();
+        Warehouse warehouse = new Warehouse(1, "Main Warehouse");
+
+        // When
+        ImportStats stats = new CatalogImporter(products, warehouse).importBinary(file);
+
+        // Then
+        assertEquals(2, stats.rows());
+        assertEquals(3, stats.rejectedRows());
+        assertEquals(new Product(1, "Wireless Mouse", new BigDecimal("29.99")), products.getProductById(1));
+        assertEquals(new Product(5, "Cable Management Kit", new BigDecimal("19.99")), products.getProductById(5));
+        assertEquals(2, products.getProducts().size());
+        assertEquals(Map.of(1, 50, 5, 0), warehouse.getStockLevels());
+    }
+
+    @Test
+    void importBinary_WithOtherFile_ShouldThrowException() throws IOException {
+        // Given
+        Path file = directory.resolve("catalog.csv");
+        Files.writeString(file, "1,Wireless Mouse,29.99,50\n");
+
+        // When & Then
+        assertThrows(IOException.class, () -> new CatalogImporter(new ProductRepo(), null).importBinary(file));
+    }
+
+    private static void binaryRow(ByteBuffer buffer, int id, long cents, int stock, String name) {
+        byte[] bytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(id).putLong(cents).putInt(stock).putShort((short) (bytes == null ? -1 : bytes.length));
+        if (bytes != null) {
+            buffer.put(bytes);
+        }
+    }
+}
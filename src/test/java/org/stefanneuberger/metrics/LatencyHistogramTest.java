@@ -0,0 +1,49 @@
+package org.stefanneuberger.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void index_ShouldMapEveryValueIntoABucketThatContainsIt() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 65, 1000, 123_456, 1L << 39, (1L << 40) - 1}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.upperBound(index) >= value, "upper bound of " + value);
+            assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) < value, "lower bound of " + value);
+        }
+    }
+
+    @Test
+    void getValueAtQuantile_ShouldStayWithinThreePercent() {
+        // Given 1..100000 ns
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        // Then
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000, histogram.getMax());
+        assertEquals(50_000.5, histogram.getMean(), 0.001);
+        assertEquals(50_000, histogram.getValueAtQuantile(0.5), 50_000 * 0.03);
+        assertEquals(99_000, histogram.getValueAtQuantile(0.99), 99_000 * 0.03);
+        assertEquals(99_900, histogram.getValueAtQuantile(0.999), 99_900 * 0.03);
+        assertEquals(100_000, histogram.getValueAtQuantile(1));
+    }
+
+    @Test
+    void reset_ShouldForgetAllValues() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(500);
+
+        // When
+        histogram.reset();
+
+        // Then
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtQuantile(0.99));
+    }
+}
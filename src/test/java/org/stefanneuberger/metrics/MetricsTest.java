@@ -0,0 +1,108 @@
+package org.stefanneuberger.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.OrderListRepo.ConcurrentOrderRepo;
+import org.stefanneuberger.OrderListRepo.OrderListRepo;
+import org.stefanneuberger.ShopService.OrderLine;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepo;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    private Metrics metrics;
+    private Product product;
+    private Warehouse warehouse;
+    private InstrumentedShopService shopService;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new Metrics();
+        product = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+        warehouse = new Warehouse(1, "Main Warehouse");
+        warehouse.addProduct(product, 5);
+        warehouse.addStockListener(new StockMetrics(metrics));
+        shopService = new InstrumentedShopService(1, "Test Shop", warehouse,
+                new InstrumentedProductRepo(new ProductRepo(List.of(product)), metrics), metrics);
+    }
+
+    @Test
+    void createOrder_ShouldRecordLatencyAndStockChanges() {
+        // When
+        shopService.createOrder(product, 5);
+
+        // Then
+        assertEquals(1, metrics.timer("shop.createOrder").getCount());
+        assertEquals(1, metrics.timer("products.getProductById").getCount());
+        assertEquals(5, metrics.getCount("warehouse.unitsOut"));
+        assertEquals(1, metrics.getCount("warehouse.soldOut"));
+    }
+
+    @Test
+    void createOrder_WhenRejected_ShouldCountTheReason() {
+        // Given
+        Product unknown = new Product(2, "Unknown", new BigDecimal("1.00"));
+
+        // When
+        assertThrows(IllegalArgumentException.class, () -> shopService.createOrder(product, 6));
+        assertThrows(IllegalArgumentException.class, () -> shopService.createOrder(unknown, 1));
+        assertThrows(IllegalArgumentException.class, () -> shopService.createOrder(product, 0));
+
+        // Then
+        assertEquals(1, metrics.getCount("shop.createOrder.rejected.insufficientStock"));
+        assertEquals(1, metrics.getCount("shop.createOrder.rejected.productNotFound"));
+        assertEquals(1, metrics.getCount("shop.createOrder.rejected.invalidRequest"));
+        assertEquals(1, metrics.getCount("products.getProductById.miss"));
+        assertEquals(3, metrics.timer("shop.createOrder").getCount());
+    }
+
+    @Test
+    void createOrders_WhenRejectedForManyProducts_ShouldUseOneCounter() {
+        // Given
+        Product other = new Product(3, "Keyboard", new BigDecimal("9.99"));
+        shopService.getProductRepo().addProduct(other);
+
+        // When
+        assertThrows(IllegalArgumentException.class, () -> shopService.createOrders(List.of(new OrderLine(product, 6))));
+        assertThrows(IllegalArgumentException.class, () -> shopService.createOrders(List.of(new OrderLine(other, 1))));
+
+        // Then the message names the product, the counter does not
+        assertEquals(2, metrics.getCount("shop.createOrders.rejected.insufficientStock"));
+        assertFalse(metrics.snapshot().contains("product 3"));
+    }
+
+    @Test
+    void unwrap_ShouldFindTheDecoratedRepository() {
+        // Given
+        ConcurrentOrderRepo orders = new ConcurrentOrderRepo();
+        InstrumentedOrderRepo instrumented = new InstrumentedOrderRepo(orders, metrics);
+
+        // Then
+        assertSame(orders, instrumented.unwrap(ConcurrentOrderRepo.class));
+        assertSame(instrumented, instrumented.unwrap(InstrumentedOrderRepo.class));
+        assertNull(instrumented.unwrap(OrderListRepo.class));
+        assertNotNull(shopService.getProductRepo().unwrap(ProductRepo.class));
+    }
+
+    @Test
+    void snapshot_ShouldListEveryMetric() {
+        // Given
+        shopService.createOrder(product, 1);
+        shopService.deleteOrder(1);
+
+        // When
+        String snapshot = metrics.snapshot();
+
+        // Then
+        assertTrue(snapshot.contains("shop.createOrder count=1 "));
+        assertTrue(snapshot.contains("shop.deleteOrder count=1 "));
+        assertTrue(snapshot.contains("p999="));
+        assertTrue(snapshot.contains("warehouse.unitsOut count=1 "));
+    }
+}
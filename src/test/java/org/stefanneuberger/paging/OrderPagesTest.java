@@ -0,0 +1,123 @@
+package org.stefanneuberger.paging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.OrderListRepo.ConcurrentOrderRepo;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderPagesTest {
+
+    private final Product mouse = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+    private final Product keyboard = new Product(2, "Mechanical Keyboard", new BigDecimal("89.99"));
+
+    private ConcurrentOrderRepo orders;
+    private OrderPages pages;
+
+    @BeforeEach
+    void setUp() {
+        orders = new ConcurrentOrderRepo();
+        orders.addOrder(new Order(1, mouse, 1));
+        orders.addOrder(new Order(2, keyboard, 1));
+        pages = OrderPages.attach(orders);
+    }
+
+    @Test
+    void getPage_ShouldFollowTheRepository() {
+        // When
+        orders.addOrder(new Order(3, mouse, 10));
+        orders.updateOrder(new Order(2, keyboard, 2));
+        orders.removeOrderById(1);
+
+        // Then
+        assertEquals(List.of(3, 2), ids(pages.getPage(OrderSort.TOTAL, null, 10, true)));
+        assertEquals(List.of(3), ids(pages.getPage(OrderSort.ID, new Order(2, null, 0), 10)));
+        assertEquals(2, pages.size());
+    }
+
+    @Test
+    void getPage_ByTotal_WithPricesAtOtherScales_ShouldSortByValue() {
+        // When
+        orders.addOrder(new Order(3, new Product(3, "Cable", new BigDecimal("30.000")), 1));
+        orders.addOrder(new Order(4, new Product(4, "Adapter", new BigDecimal("29.9")), 1));
+
+        // Then 29.90 < 29.99 < 30.000 < 89.99
+        assertEquals(List.of(4, 1, 3, 2), ids(pages.getPage(OrderSort.TOTAL, null, 10)));
+    }
+
+    @Test
+    void orderRemoved_OfAReplacedVersion_ShouldKeepTheCurrentOne() {
+        // When
+        pages.orderAdded(new Order(1, mouse, 5));
+        pages.orderRemoved(new Order(1, mouse, 1));
+
+        // Then
+        assertEquals(List.of(1, 2), ids(pages.getPage(OrderSort.ID, null, 10)));
+    }
+
+    @Test
+    void close_ShouldStopFollowingTheRepository() {
+        // When
+        orders.removeAllOrders();
+        pages.close();
+        orders.addOrder(new Order(4, mouse, 1));
+
+        // Then
+        assertEquals(0, pages.size());
+    }
+
+    @Test
+    void getPage_AfterConcurrentUpserts_ShouldMatchTheRepository() throws Exception {
+        // Given 8 threads that replace orders by product and by id across 4 products
+        List<Product> products = List.of(mouse, keyboard,
+                new Product(3, "Monitor", new BigDecimal("199.00")),
+                new Product(4, "Headset", new BigDecimal("59.00")));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            results.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < 2_000; i++) {
+                    Product product = products.get(random.nextInt(products.size()));
+                    if (random.nextBoolean()) {
+                        orders.addOrder(product, 1 + random.nextInt(5));
+                    } else {
+                        orders.updateOrder(new Order(1 + random.nextInt(8), product, 1 + random.nextInt(5)));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(orders.getOrders(), pages.getPage(OrderSort.ID, null, 100).items());
+    }
+
+    private static List<Integer> ids(Page<Order> page) {
+        return page.items().stream().map(Order::id).toList();
+    }
+}
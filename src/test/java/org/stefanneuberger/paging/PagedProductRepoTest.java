@@ -0,0 +1,78 @@
+package org.stefanneuberger.paging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedProductRepoTest {
+
+    private PagedProductRepo repo;
+
+    @BeforeEach
+    void setUp() {
+        repo = new PagedProductRepo(new ProductRepo(List.of(
+                new Product(1, "Wireless Mouse", new BigDecimal("29.99")),
+                new Product(2, "mechanical Keyboard", new BigDecimal("89.99")),
+                new Product(3, "USB-C Hub", new BigDecimal("29.99")),
+                new Product(4, "Gaming Headset", new BigDecimal("79.99")),
+                new Product(5, "Monitor Stand", new BigDecimal("34.99")))));
+    }
+
+    @Test
+    void getPage_ShouldWalkTheCatalogByCursor() {
+        // When
+        Page<Product> first = repo.getPage(ProductSort.PRICE, null, 2);
+        Page<Product> second = repo.getPage(ProductSort.PRICE, first.last(), 2);
+        Page<Product> third = repo.getPage(ProductSort.PRICE, second.last(), 2);
+
+        // Then
+        assertEquals(List.of(1, 3), ids(first));
+        assertEquals(List.of(5, 4), ids(second));
+        assertEquals(List.of(2), ids(third));
+        assertTrue(second.hasMore());
+        assertFalse(third.hasMore());
+    }
+
+    @Test
+    void getPage_ShouldSortByNameIgnoringCaseAndDescending() {
+        // Then
+        assertEquals(List.of(4, 2, 5, 3, 1), ids(repo.getPage(ProductSort.NAME, null, 10)));
+        assertEquals(List.of(2, 4), ids(repo.getPage(ProductSort.PRICE, null, 2, true)));
+    }
+
+    @Test
+    void getPage_WithCursorThatWasDeleted_ShouldContinueAfterItsPosition() {
+        // Given
+        Page<Product> first = repo.getPage(ProductSort.ID, null, 2);
+
+        // When
+        repo.deleteProduct(2);
+        repo.updateProduct(new Product(1, "Wireless Mouse", new BigDecimal("99.99")));
+        repo.addProduct(new Product(6, "Cable Kit", new BigDecimal("19.99")));
+
+        // Then
+        assertEquals(List.of(3, 4, 5, 6), ids(repo.getPage(ProductSort.ID, first.last(), 10)));
+        assertEquals(List.of(6, 3, 5, 4, 1), ids(repo.getPage(ProductSort.PRICE, null, 10)));
+    }
+
+    @Test
+    void setProducts_ShouldRebuildTheIndexes() {
+        // When
+        repo.setProducts(new ArrayList<>(List.of(new Product(9, "Desk Lamp", new BigDecimal("24.99")))));
+
+        // Then
+        assertEquals(List.of(9), ids(repo.getPage(ProductSort.NAME, null, 10)));
+        assertThrows(IllegalArgumentException.class, () -> repo.getPage(ProductSort.ID, null, 0));
+    }
+
+    private static List<Integer> ids(Page<Product> page) {
+        return page.items().stream().map(Product::id).toList();
+    }
+}
@@ -0,0 +1,186 @@
+package org.stefanneuberger.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.stefanneuberger.OrderListRepo.ConcurrentOrderRepo;
+import org.stefanneuberger.OrderListRepo.Order;
+import org.stefanneuberger.OrderListRepo.OrderListRepo;
+import org.stefanneuberger.OrderListRepo.OrderListener;
+import org.stefanneuberger.OrderListRepo.OrderRepoSpec;
+import org.stefanneuberger.ShopService.ShopService;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepo;
+import org.stefanneuberger.warehouse.Warehouse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShopJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private Product mouse;
+    private Product keyboard;
+
+    @BeforeEach
+    void setUp() {
+        mouse = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+        keyboard = new Product(2, "Mechanical Keyboard", new BigDecimal("89.99"));
+    }
+
+    @Test
+    void open_AfterRestart_ShouldRebuildOrdersAndStock() throws IOException {
+        // Given a shop whose orders and stock are journaled
+        Warehouse warehouse = newWarehouse();
+        ShopService shop = new ShopService(1, "Test Shop", warehouse, List.of(mouse, keyboard));
+        OrderRepoSpec orders = shop.getShopOrders();
+        try (ShopJournal journal = ShopJournal.open(directory, FsyncPolicy.ALWAYS, Duration.ofMillis(5), orders, List.of(warehouse))) {
+            shop.createOrder(mouse, 2);
+            Order second = shop.createOrder(keyboard, 1);
+            shop.updateOrder(second.id(), 4, keyboard);
+            shop.deleteOrder(1);
+            warehouse.increaseStock(mouse.id(), 5);
+        }
+
+        // When the state is rebuilt from the log
+        OrderListRepo recoveredOrders = new OrderListRepo();
+        Warehouse recoveredWarehouse = new Warehouse(1, "Main Warehouse");
+        try (ShopJournal journal = ShopJournal.open(directory, FsyncPolicy.ALWAYS, Duration.ofMillis(5), recoveredOrders, List.of(recoveredWarehouse))) {
+            // Then
+            assertTrue(journal.getReplayedRecords() > 0);
+            assertEquals(orders.getOrders(), recoveredOrders.getOrders());
+            assertEquals(3, recoveredOrders.getNextId());
+            assertEquals(13, recoveredWarehouse.getStockLevel(mouse.id()));
+            assertEquals(4, recoveredWarehouse.getStockLevel(keyboard.id()));
+        }
+    }
+
+    @Test
+    void stockChange_WithFsyncAlways_ShouldBeDurableOnlyAfterTheStockLockIsReleased() throws IOException {
+        // Given
+        Warehouse warehouse = newWarehouse();
+        try (ShopJournal journal = ShopJournal.open(directory, FsyncPolicy.ALWAYS, Duration.ofMillis(5), new OrderListRepo(), List.of(warehouse))) {
+            long before = journal.getLog().getDurablePosition();
+            long[] durableUnderLock = new long[1];
+            warehouse.addStockListener((warehouseId, productId, previousStock, newStock) ->
+                    durableUnderLock[0] = journal.getLog().getDurablePosition());
+
+            // When
+            warehouse.increaseStock(mouse.id(), 5);
+
+            // Then the fsync did not happen while the stripe lock was held, but before the call returned
+            assertEquals(before, durableUnderLock[0]);
+            assertTrue(journal.getLog().getDurablePosition() > before);
+        }
+    }
+
+    @Test
+    void orderChange_WithFsyncAlways_ShouldBeDurableOnlyAfterTheOrderLockIsReleased() throws IOException {
+        // Given
+        ConcurrentOrderRepo orders = new ConcurrentOrderRepo();
+        try (ShopJournal journal = ShopJournal.open(directory, FsyncPolicy.ALWAYS, Duration.ofMillis(5), orders, List.of())) {
+            long before = journal.getLog().getDurablePosition();
+            long[] durableUnderLock = new long[1];
+            orders.addOrderListener(new OrderListener() {
+                @Override
+                public void orderAdded(Order order) {
+                    durableUnderLock[0] = journal.getLog().getDurablePosition();
+                }
+
+                @Override
+                public void orderRemoved(Order order) {
+                }
+
+                @Override
+                public void ordersCleared() {
+                }
+            });
+
+            // When
+            orders.addOrder(mouse, 1);
+
+            // Then the fsync did not happen while the stripe lock was held, but before the call returned
+            assertEquals(before, durableUnderLock[0]);
+            assertTrue(journal.getLog().getDurablePosition() > before);
+        }
+    }
+
+    @Test
+    void open_WithTornLastRecord_ShouldReplayEverythingBeforeIt() throws IOException {
+        // Given
+        OrderListRepo orders = new OrderListRepo();
+        try (ShopJournal journal = ShopJournal.open(directory, FsyncPolicy.PERIODIC, Duration.ofMillis(5), orders, List.of())) {
+            orders.addOrder(mouse, 1);
+            orders.addOrder(keyboard, 2);
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // When
+        OrderListRepo recovered = new OrderListRepo();
+        try (ShopJournal journal = ShopJournal.open(directory, FsyncPolicy.PERIODIC, Duration.ofMillis(5), recovered, List.of())) {
+            // Then
+            assertEquals(1, journal.getReplayedRecords());
+            assertEquals(List.of(new Order(1, mouse, 1)), recovered.getOrders());
+        }
+    }
+
+    @Test
+    void checkpoint_ShouldCompactTheLogAndRestoreFromSnapshotPlusTail() throws IOException {
+        // Given
+        Warehouse warehouse = newWarehouse();
+        ProductRepo products = new ProductRepo(List.of(mouse, keyboard));
+        OrderListRepo orders = new OrderListRepo();
+        try (ShopJournal journal = ShopJournal.open(directory, FsyncPolicy.PERIODIC, Duration.ofMillis(5),
+                products, orders, List.of(warehouse))) {
+            orders.addOrder(mouse, 1);
+            warehouse.decreaseStock(mouse.id(), 1);
+
+            // When
+            Path snapshot = journal.checkpoint();
+            orders.addOrder(keyboard, 3);
+            warehouse.decreaseStock(keyboard.id(), 3);
+
+            // Then only the snapshot and the segments written after it are left
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(List.of(snapshot.getFileName().toString(), "wal-00000002.log"),
+                        files.map(path -> path.getFileName().toString()).sorted().toList());
+            }
+        }
+
+        ProductRepo recoveredProducts = new ProductRepo();
+        OrderListRepo recoveredOrders = new OrderListRepo();
+        Warehouse recoveredWarehouse = new Warehouse(1, "Main Warehouse");
+        try (ShopJournal journal = ShopJournal.open(directory, FsyncPolicy.PERIODIC, Duration.ofMillis(5),
+                recoveredProducts, recoveredOrders, List.of(recoveredWarehouse))) {
+            assertEquals(2, journal.getReplayedRecords());
+            assertEquals(products.getProducts(), recoveredProducts.getProducts());
+            assertEquals(orders.getOrders(), recoveredOrders.getOrders());
+            assertEquals(9, recoveredWarehouse.getStockLevel(mouse.id()));
+            assertEquals(2, recoveredWarehouse.getStockLevel(keyboard.id()));
+        }
+    }
+
+    private Warehouse newWarehouse() {
+        Warehouse warehouse = new Warehouse(1, "Main Warehouse");
+        warehouse.addProduct(mouse, 10);
+        warehouse.addProduct(keyboard, 5);
+        return warehouse;
+    }
+}
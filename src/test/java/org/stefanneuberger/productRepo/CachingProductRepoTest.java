@@ -0,0 +1,149 @@
+package org.stefanneuberger.productRepo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingProductRepoTest {
+
+    private ProductRepo source;
+    private AtomicInteger loads;
+    private CachingProductRepo cache;
+
+    @BeforeEach
+    void setUp() {
+        List<Product> products = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            products.add(new Product(id, "Product " + id, new BigDecimal("1.00")));
+        }
+        source = new ProductRepo(products);
+        loads = new AtomicInteger();
+        cache = new CachingProductRepo(source, id -> {
+            loads.incrementAndGet();
+            return source.getProductById(id);
+        }, 3);
+    }
+
+    @Test
+    void getProductById_ShouldLoadOnlyOnTheFirstRead() {
+        // When
+        Product first = cache.getProductById(1);
+        Product second = cache.getProductById(1);
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void getProductById_WithUnknownId_ShouldReturnNull() {
+        assertNull(cache.getProductById(99));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void getProductById_WhenFull_ShouldEvictAnEntryThatWasNotUsedRecently() {
+        // Given a full cache where product 1 was read again
+        cache.getProductById(1);
+        cache.getProductById(2);
+        cache.getProductById(3);
+        cache.getProductById(1);
+
+        // When
+        cache.getProductById(4);
+
+        // Then 1 gets a second chance and 2 is evicted
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        int loadsBefore = loads.get();
+        cache.getProductById(1);
+        cache.getProductById(3);
+        assertEquals(loadsBefore, loads.get());
+        cache.getProductById(2);
+        assertEquals(loadsBefore + 1, loads.get());
+    }
+
+    @Test
+    void updateProduct_ShouldInvalidateTheCachedEntry() {
+        // Given
+        cache.getProductById(1);
+        Product updated = new Product(1, "Renamed", new BigDecimal("2.00"));
+
+        // When
+        cache.updateProduct(updated);
+
+        // Then
+        assertEquals(updated, source.getProductById(1));
+        assertEquals(updated, cache.getProductById(1));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void deleteProduct_ShouldRemoveFromSourceAndCache() {
+        // Given
+        cache.getProductById(2);
+        cache.getProductById(3);
+
+        // When
+        cache.deleteProduct(2);
+
+        // Then
+        assertNull(cache.getProductById(2));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.getProductById(3));
+    }
+
+    @Test
+    void setProducts_ShouldDropEverythingCached() {
+        // Given
+        cache.getProductById(1);
+
+        // When
+        cache.setProducts(List.of(new Product(1, "Only", new BigDecimal("3.00"))));
+
+        // Then
+        assertEquals(0, cache.size());
+        assertEquals("Only", cache.getProductById(1).name());
+    }
+
+    @Test
+    void getProductById_WhenTheSameIdIsInvalidatedDuringTheLoad_ShouldNotCacheIt() {
+        // Given a load of product 1 that races with a write of product 1
+        CachingProductRepo[] racing = new CachingProductRepo[1];
+        racing[0] = new CachingProductRepo(source, id -> {
+            racing[0].invalidate(1);
+            return source.getProductById(id);
+        }, 3);
+
+        // When
+        racing[0].getProductById(1);
+
+        // Then the possibly stale product is not admitted
+        assertEquals(0, racing[0].size());
+    }
+
+    @Test
+    void getProductById_WhenAnotherIdIsInvalidatedDuringTheLoad_ShouldStillCacheIt() {
+        // Given a load of product 1 that races with a write of product 2
+        CachingProductRepo[] racing = new CachingProductRepo[1];
+        racing[0] = new CachingProductRepo(source, id -> {
+            racing[0].invalidate(2);
+            return source.getProductById(id);
+        }, 3);
+
+        // When
+        racing[0].getProductById(1);
+
+        // Then
+        assertEquals(1, racing[0].size());
+    }
+}
@@ -0,0 +1,97 @@
+package org.stefanneuberger.productRepo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedProductRepoTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private MappedProductRepo productRepo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("catalog.bin");
+        productRepo = MappedProductRepo.open(file, List.of(
+                new Product(1, "keyboard ZSA voyager", new BigDecimal("123.98")),
+                new Product(2, "Mini Mouse", new BigDecimal("22.98")),
+                new Product(3, "Mickey Mouse", new BigDecimal("134.98"))
+        ));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        productRepo.close();
+    }
+
+    @Test
+    void getProductById() {
+        assertEquals(new Product(2, "Mini Mouse", new BigDecimal("22.98")), productRepo.getProductById(2));
+        assertNull(productRepo.getProductById(999));
+    }
+
+    @Test
+    void updateProduct_ShouldReplaceInPlace() {
+        Product updated = new Product(1, "keyboard ZSA moonlander", new BigDecimal("299.00"));
+
+        productRepo.updateProduct(updated);
+
+        assertEquals(updated, productRepo.getProductById(1));
+        assertEquals(updated, productRepo.getProducts().get(0));
+        assertEquals(3, productRepo.getProducts().size());
+    }
+
+    @Test
+    void deleteProduct_ShouldMoveLastProductIntoTheGap() {
+        productRepo.deleteProduct(1);
+
+        assertNull(productRepo.getProductById(1));
+        assertEquals(List.of(3, 2), productRepo.getProducts().stream().map(Product::id).toList());
+        assertEquals("Mickey Mouse", productRepo.getProductById(3).name());
+    }
+
+    @Test
+    void reopen_ShouldLoadTheCatalogFromTheFile() throws IOException {
+        productRepo.addProduct(new Product(4, "Ergo Stand", null));
+        productRepo.deleteProduct(2);
+        List<Product> before = List.copyOf(productRepo.getProducts());
+        productRepo.close();
+
+        productRepo = new MappedProductRepo(file);
+
+        assertEquals(before, productRepo.getProducts());
+        assertNull(productRepo.getProductById(4).price());
+    }
+
+    @Test
+    void addProduct_WithManyProducts_ShouldSpanSeveralChunks() {
+        for (int id = 10; id < 200_000; id++) {
+            productRepo.addProduct(new Product(id, "Product " + id, BigDecimal.valueOf(id, 2)));
+        }
+
+        assertEquals(199_993, productRepo.size());
+        assertEquals(new Product(150_000, "Product 150000", new BigDecimal("1500.00")), productRepo.getProductById(150_000));
+    }
+
+    @Test
+    void addProduct_WithTooLongName_ShouldThrowException() {
+        Product product = new Product(5, "x".repeat(MappedProductRepo.MAX_NAME_BYTES + 1), BigDecimal.ONE);
+
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> productRepo.addProduct(product)
+        );
+        assertEquals("Product name is too long for a catalog slot", exception.getMessage());
+    }
+}
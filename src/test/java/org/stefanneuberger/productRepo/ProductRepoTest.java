@@ -38,13 +38,27 @@ class ProductRepoTest {
         // When setting the products list
         productRepo.setProducts(newProducts);
 
-        // Then the repo should return the new list
-        assertSame(newProducts, productRepo.getProducts(), "Expected the internal list reference to be updated to the new list");
+        // Then the repo should return the new products, independent of the caller's list
+        newProducts.add(new Product(12, "Webcam", new BigDecimal("59.99")));
         assertEquals(2, productRepo.getProducts().size());
         assertTrue(productRepo.getProducts().contains(newProduct1));
         assertTrue(productRepo.getProducts().contains(newProduct2));
     }
 
+    @Test
+    void setProducts_WithDuplicateIds_ShouldAgreeWithLookupById() {
+        // Given
+        Product first = new Product(10, "Trackpad", new BigDecimal("49.99"));
+        Product second = new Product(10, "Trackpad Pro", new BigDecimal("69.99"));
+
+        // When
+        productRepo.setProducts(List.of(first, second));
+
+        // Then
+        assertEquals(List.of(second), productRepo.getProducts());
+        assertSame(second, productRepo.getProductById(10));
+    }
+
     @Test
     void getProductById() {
         // Existing product
@@ -99,4 +113,29 @@ class ProductRepoTest {
         assertNotNull(productRepo.getProductById(2));
         assertNotNull(productRepo.getProductById(3));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getProducts_keepsInsertionOrderAfterUpdateAndDelete() {
+        Product updated = new Product(1, "keyboard ZSA moonlander", new BigDecimal("299.00"));
+
+        productRepo.updateProduct(updated);
+        productRepo.deleteProduct(2);
+
+        List<Product> products = productRepo.getProducts();
+        assertEquals(2, products.size());
+        assertEquals(3, products.get(0).id());
+        assertEquals(updated, products.get(1));
+        assertSame(updated, productRepo.getProductById(1));
+    }
+
+    @Test
+    void getProducts_ShouldNotBeModifiable() {
+        // Given the cached product list
+        List<Product> products = productRepo.getProducts();
+
+        // When / Then an edit is rejected instead of silently bypassing the index
+        assertThrows(UnsupportedOperationException.class,
+                () -> products.add(new Product(4, "Trackpad", new BigDecimal("49.99"))));
+        assertNull(productRepo.getProductById(4));
+    }
+}
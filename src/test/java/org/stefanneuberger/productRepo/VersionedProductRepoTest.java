@@ -0,0 +1,167 @@
+package org.stefanneuberger.productRepo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedProductRepoTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    private MutableClock clock;
+    private VersionedProductRepo repo;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        repo = new VersionedProductRepo(new ProductRepo(List.of(
+                new Product(1, "Wireless Mouse", new BigDecimal("29.99")))), clock);
+    }
+
+    @Test
+    void getPriceAsOf_ShouldReturnThePriceValidAtThatTime() {
+        // Given
+        clock.advance(Duration.ofDays(10));
+        repo.updateProduct(new Product(1, "Wireless Mouse", new BigDecimal("24.99")));
+        clock.advance(Duration.ofDays(10));
+        repo.updateProduct(new Product(1, "Wireless Mouse", new BigDecimal("27.99")));
+
+        // Then
+        assertNull(repo.getPriceAsOf(1, START.minusMillis(1)));
+        assertEquals(new BigDecimal("29.99"), repo.getPriceAsOf(1, START));
+        assertEquals(new BigDecimal("29.99"), repo.getPriceAsOf(1, START.plus(Duration.ofDays(10)).minusMillis(1)));
+        assertEquals(new BigDecimal("24.99"), repo.getPriceAsOf(1, START.plus(Duration.ofDays(10))));
+        assertEquals(new BigDecimal("27.99"), repo.getPriceAsOf(1, START.plus(Duration.ofDays(365))));
+    }
+
+    @Test
+    void updateProduct_WithUnchangedPrice_ShouldNotAddAVersion() {
+        // When
+        repo.updateProduct(new Product(1, "Renamed Mouse", new BigDecimal("29.99")));
+
+        // Then
+        assertEquals(1, repo.getVersionCount(1));
+        assertEquals("Renamed Mouse", repo.getProductById(1).name());
+    }
+
+    @Test
+    void updateProduct_WithoutPrice_ShouldNotBeRecordedAsZero() {
+        // When
+        clock.advance(Duration.ofHours(1));
+        repo.updateProduct(new Product(1, "Wireless Mouse", null));
+        clock.advance(Duration.ofHours(1));
+        repo.updateProduct(new Product(1, "Wireless Mouse", new BigDecimal("0.00")));
+
+        // Then
+        assertEquals(3, repo.getVersionCount(1));
+        assertNull(repo.getPriceAsOf(1, START.plus(Duration.ofHours(1))));
+        assertEquals(new BigDecimal("0.00"), repo.getPriceAsOf(1, START.plus(Duration.ofHours(2))));
+        assertEquals(new PriceChange(START.plus(Duration.ofHours(1)), null), repo.getPriceHistory(1).get(1));
+    }
+
+    @Test
+    void deleteProduct_ShouldEndThePriceHistory() {
+        // Given
+        clock.advance(Duration.ofHours(1));
+
+        // When
+        repo.deleteProduct(1);
+
+        // Then
+        assertEquals(List.of(
+                new PriceChange(START, new BigDecimal("29.99")),
+                new PriceChange(START.plus(Duration.ofHours(1)), null)
+        ), repo.getPriceHistory(1));
+        assertNull(repo.getPriceAsOf(1, START.plus(Duration.ofDays(1))));
+        assertEquals(new BigDecimal("29.99"), repo.getPriceAsOf(1, START));
+    }
+
+    @Test
+    void getPriceAsOf_WithManyVersions_ShouldFindEachOne() {
+        // Given 10000 price changes one second apart
+        for (int i = 1; i <= 10_000; i++) {
+            clock.advance(Duration.ofSeconds(1));
+            repo.updateProduct(new Product(1, "Wireless Mouse", BigDecimal.valueOf(i, 2)));
+        }
+
+        // Then
+        assertEquals(10_001, repo.getVersionCount(1));
+        for (int i = 1; i <= 10_000; i += 997) {
+            assertEquals(BigDecimal.valueOf(i, 2), repo.getPriceAsOf(1, START.plusSeconds(i).plusMillis(500)));
+        }
+    }
+
+    @Test
+    void getPriceAsOf_WhileWriting_ShouldAlwaysSeeAConsistentHistory() throws Exception {
+        // Given a reader that checks prices of the past while a writer keeps repricing
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Throwable> failures = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                int versions = repo.getVersionCount(1);
+                BigDecimal price = repo.getPriceAsOf(1, START.plusSeconds(versions - 1));
+                if (price == null || (versions > 1 && price.compareTo(BigDecimal.valueOf(versions - 1, 2)) < 0)) {
+                    synchronized (failures) {
+                        failures.add(new AssertionError("Unexpected price " + price + " for " + versions + " versions"));
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        // When
+        for (int i = 1; i <= 50_000; i++) {
+            clock.advance(Duration.ofSeconds(1));
+            repo.updateProduct(new Product(1, "Wireless Mouse", BigDecimal.valueOf(i, 2)));
+        }
+        running.set(false);
+        reader.join();
+
+        // Then
+        assertTrue(failures.isEmpty(), () -> failures.get(0).getMessage());
+        assertEquals(50_001, repo.getVersionCount(1));
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile long millis;
+
+        MutableClock(Instant start) {
+            this.millis = start.toEpochMilli();
+        }
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
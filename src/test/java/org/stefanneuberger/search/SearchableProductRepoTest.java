@@ -0,0 +1,98 @@
+package org.stefanneuberger.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.productRepo.Product;
+import org.stefanneuberger.productRepo.ProductRepo;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchableProductRepoTest {
+
+    private SearchableProductRepo repo;
+
+    @BeforeEach
+    void setUp() {
+        repo = new SearchableProductRepo(new ProductRepo(List.of(
+                new Product(1, "Wireless Mouse", new BigDecimal("29.99")),
+                new Product(2, "Wired Keyboard", new BigDecimal("49.99")),
+                new Product(3, "Mouse Pad", new BigDecimal("9.99")),
+                new Product(4, "USB-C Cable", new BigDecimal("12.99")))));
+    }
+
+    @Test
+    void search_WithPrefix_ShouldReturnExactTermBeforeLongerTerms() {
+        // When
+        List<Integer> ids = ids(repo.search("wire", 10));
+
+        // Then
+        assertEquals(List.of(2, 1), ids);
+    }
+
+    @Test
+    void search_WithSeveralWords_ShouldRequireAllOfThem() {
+        // Then
+        assertEquals(List.of(1), ids(repo.search("mouse WIRE", 10)));
+        assertEquals(List.of(4), ids(repo.search("usb c", 10)));
+        assertEquals(List.of(), ids(repo.search("pad wire", 10)));
+        assertEquals(List.of(), ids(repo.search("  - ", 10)));
+    }
+
+    @Test
+    void search_ShouldStopAtTheLimit() {
+        // Then
+        assertEquals(List.of(2), ids(repo.search("w", 1)));
+        assertThrows(IllegalArgumentException.class, () -> repo.search("w", 0));
+    }
+
+    @Test
+    void writes_ShouldKeepTheIndexInSync() {
+        // When
+        repo.addProduct(new Product(5, "Wireless Headset", new BigDecimal("59.99")));
+        repo.updateProduct(new Product(1, "Optical Mouse", new BigDecimal("29.99")));
+        repo.deleteProduct(3);
+
+        // Then
+        assertEquals(List.of(5), ids(repo.search("wireless", 10)));
+        assertEquals(List.of(1), ids(repo.search("mou", 10)));
+        assertEquals(List.of(), ids(repo.search("pad", 10)));
+        assertEquals(4, repo.getIndex().size());
+    }
+
+    @Test
+    void setProducts_ShouldRebuildTheIndex() {
+        // When
+        repo.setProducts(List.of(new Product(7, "Monitor Stand", new BigDecimal("39.99"))));
+
+        // Then
+        assertEquals(List.of(7), ids(repo.search("mon", 10)));
+        assertEquals(List.of(), ids(repo.search("mouse", 10)));
+        assertEquals(2, repo.getIndex().getTermCount());
+    }
+
+    @Test
+    void index_ShouldKeepPostingsSortedForOutOfOrderIds() {
+        // Given
+        ProductSearchIndex index = new ProductSearchIndex();
+
+        // When
+        index.index(new Product(30, "Desk Lamp", null));
+        index.index(new Product(10, "Desk Chair", null));
+        index.index(new Product(20, "Desk Mat", null));
+        index.index(new Product(10, "Desk Chair", null));
+        index.index(new Product(5, "Desk Light", null));
+
+        // Then
+        assertArrayEquals(new int[]{5, 10, 20, 30}, index.search("desk", 10));
+        assertArrayEquals(new int[]{20}, index.search("desk m", 10));
+        assertArrayEquals(new int[]{5, 30}, index.search("desk l", 10));
+        assertArrayEquals(new int[]{5}, index.search("desk l", 1));
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::id).toList();
+    }
+}
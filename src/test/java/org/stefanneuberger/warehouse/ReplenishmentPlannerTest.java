@@ -0,0 +1,153 @@
+package org.stefanneuberger.warehouse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplenishmentPlannerTest {
+
+    private Warehouse warehouse;
+    private Product hub;
+    private Product cables;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        // stock like the sample shop in Main
+        warehouse = new Warehouse(1, "Main Warehouse");
+        hub = new Product(3, "USB-C Hub", new BigDecimal("49.99"));
+        cables = new Product(6, "Cable Management Kit", new BigDecimal("19.99"));
+        warehouse.addProduct(new Product(1, "Wireless Mouse", new BigDecimal("29.99")), 50);
+        warehouse.addProduct(hub, 1);
+        warehouse.addProduct(cables, 0);
+        clock = new MutableClock();
+    }
+
+    private ReplenishmentPlanner planner(int threshold) {
+        return ReplenishmentPlanner.attach(warehouse, threshold, Duration.ofDays(14), Duration.ofDays(7), clock);
+    }
+
+    @Test
+    void attach_ShouldSuggestProductsThatAreAlreadyLow() {
+        // When
+        ReplenishmentPlanner planner = planner(2);
+
+        // Then
+        assertEquals(2, planner.getOpenSuggestions().size());
+        assertEquals(2, planner.getSuggestion(hub.id()).suggestedQuantity());
+        assertEquals(3, planner.getSuggestion(cables.id()).suggestedQuantity());
+        assertNull(planner.getSuggestion(1));
+    }
+
+    @Test
+    void stockChanged_ShouldSuggestOnceWhenCrossingTheThreshold() {
+        // Given
+        ReplenishmentPlanner planner = planner(2);
+        planner.setReorderThreshold(1, 10);
+        List<ReorderSuggestion> emitted = new ArrayList<>();
+        planner.addSuggestionListener(emitted::add);
+
+        // When
+        warehouse.decreaseStock(1, 35);
+        warehouse.decreaseStock(1, 5);
+        warehouse.decreaseStock(1, 1);
+
+        // Then
+        assertEquals(1, emitted.size());
+        assertEquals(10, emitted.get(0).currentStock());
+        assertEquals(10, emitted.get(0).reorderThreshold());
+    }
+
+    @Test
+    void getUnitsPerDay_ShouldFollowRecentSalesAndDecay() {
+        // Given 10 units sold every day for 8 weeks
+        ReplenishmentPlanner planner = planner(0);
+        warehouse.updateStock(1, 1_000);
+        for (int day = 0; day < 56; day++) {
+            warehouse.decreaseStock(1, 10);
+            clock.advance(Duration.ofDays(1));
+        }
+
+        // When
+        double steady = planner.getUnitsPerDay(1);
+        clock.advance(Duration.ofDays(7));
+        double afterOneHalfLife = planner.getUnitsPerDay(1);
+
+        // Then
+        assertEquals(10, steady, 1);
+        assertEquals(steady / 2, afterOneHalfLife, 0.001);
+    }
+
+    @Test
+    void suggestedQuantity_ShouldCoverTheExpectedSales() {
+        // Given 10 units a day for 8 weeks
+        warehouse.updateStock(1, 595);
+        ReplenishmentPlanner planner = planner(20);
+        for (int day = 0; day < 56; day++) {
+            warehouse.decreaseStock(1, 10);
+            clock.advance(Duration.ofDays(1));
+        }
+
+        // When
+        warehouse.decreaseStock(1, 15);
+
+        // Then roughly threshold + 14 days * 10 units - stock
+        ReorderSuggestion suggestion = planner.getSuggestion(1);
+        assertEquals(20, suggestion.currentStock());
+        assertEquals(140, suggestion.suggestedQuantity(), 15);
+    }
+
+    @Test
+    void receiveGoods_ShouldIncreaseStockAndCloseTheSuggestion() {
+        // Given
+        ReplenishmentPlanner planner = planner(2);
+        ReorderSuggestion suggestion = planner.getSuggestion(cables.id());
+
+        // When
+        planner.receiveGoods(cables.id(), suggestion.suggestedQuantity());
+
+        // Then
+        assertEquals(3, warehouse.getStockLevel(cables.id()));
+        assertNull(planner.getSuggestion(cables.id()));
+        assertNotNull(planner.getSuggestion(hub.id()));
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.stefanneuberger.warehouse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockReservationsTest {
+
+    private Warehouse warehouse;
+    private Product product;
+    private MutableClock clock;
+    private StockReservations reservations;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = new Warehouse(1, "Main Warehouse");
+        product = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+        warehouse.addProduct(product, 10);
+        clock = new MutableClock();
+        reservations = new StockReservations(warehouse, Duration.ofMillis(100), 64, clock);
+    }
+
+    @Test
+    void reserve_ShouldMoveStockFromAvailableToReserved() {
+        // When
+        long id = reservations.reserve(product.id(), 4, Duration.ofMinutes(5));
+
+        // Then
+        assertEquals(6, reservations.getAvailableStock(product.id()));
+        assertEquals(4, reservations.getReservedStock(product.id()));
+        assertEquals(new Reservation(id, 1, 4, Duration.ofMinutes(5).toMillis()), reservations.getReservation(id));
+    }
+
+    @Test
+    void reserve_WithInsufficientStock_ShouldThrowException() {
+        // Given
+        reservations.reserve(product.id(), 8, Duration.ofMinutes(5));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> reservations.reserve(product.id(), 3, Duration.ofMinutes(5))
+        );
+        assertEquals("Insufficient stock. Available: 2, Requested: 3", exception.getMessage());
+    }
+
+    @Test
+    void expire_ShouldReleaseOnlyHoldsThatAreDue() {
+        // Given
+        long shortHold = reservations.reserve(product.id(), 2, Duration.ofSeconds(1));
+        long longHold = reservations.reserve(product.id(), 3, Duration.ofSeconds(30));
+
+        // When
+        clock.advance(Duration.ofMillis(999));
+        int beforeDeadline = reservations.expire();
+        clock.advance(Duration.ofMillis(1));
+        int atDeadline = reservations.expire();
+
+        // Then
+        assertEquals(0, beforeDeadline);
+        assertEquals(1, atDeadline);
+        assertNull(reservations.getReservation(shortHold));
+        assertNotNull(reservations.getReservation(longHold));
+        assertEquals(7, warehouse.getStockLevel(product.id()));
+        assertEquals(3, reservations.getReservedStock(product.id()));
+    }
+
+    @Test
+    void expire_ShouldKeepHoldsDueInALaterRotationOfTheWheel() {
+        // Given one rotation of the wheel is 6.4 seconds
+        long id = reservations.reserve(product.id(), 1, Duration.ofSeconds(10));
+
+        // When
+        clock.advance(Duration.ofMillis(6500));
+        reservations.expire();
+
+        // Then
+        assertNotNull(reservations.getReservation(id));
+        clock.advance(Duration.ofMillis(3500));
+        assertEquals(1, reservations.expire());
+        assertEquals(10, warehouse.getStockLevel(product.id()));
+    }
+
+    @Test
+    void confirm_ShouldKeepStockTakenAndEndTheHold() {
+        // Given
+        long id = reservations.reserve(product.id(), 4, Duration.ofSeconds(1));
+
+        // When
+        Reservation confirmed = reservations.confirm(id);
+        clock.advance(Duration.ofSeconds(2));
+        reservations.expire();
+
+        // Then
+        assertEquals(4, confirmed.quantity());
+        assertNull(reservations.confirm(id));
+        assertEquals(6, warehouse.getStockLevel(product.id()));
+        assertEquals(0, reservations.getReservedStock(product.id()));
+        assertEquals(0, reservations.size());
+    }
+
+    @Test
+    void cancel_ShouldReturnStockAndInvalidateTheId() {
+        // Given
+        long id = reservations.reserve(product.id(), 4, Duration.ofSeconds(1));
+
+        // When
+        boolean cancelled = reservations.cancel(id);
+        long reused = reservations.reserve(product.id(), 1, Duration.ofSeconds(1));
+
+        // Then the slot is reused under a new id
+        assertTrue(cancelled);
+        assertFalse(reservations.cancel(id));
+        assertNotEquals(id, reused);
+        assertEquals(9, warehouse.getStockLevel(product.id()));
+    }
+
+    @Test
+    void expire_WithManyHolds_ShouldReleaseEverything() {
+        // Given
+        warehouse.updateStock(product.id(), 100_000);
+        for (int i = 0; i < 100_000; i++) {
+            reservations.reserve(product.id(), 1, Duration.ofMillis(i % 5000));
+        }
+
+        // When
+        clock.advance(Duration.ofSeconds(5));
+        int expired = reservations.expire();
+
+        // Then
+        assertEquals(100_000, expired);
+        assertEquals(0, reservations.size());
+        assertEquals(100_000, warehouse.getStockLevel(product.id()));
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
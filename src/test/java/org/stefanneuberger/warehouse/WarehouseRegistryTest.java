@@ -0,0 +1,165 @@
+package org.stefanneuberger.warehouse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarehouseRegistryTest {
+
+    private Warehouse berlin;
+    private Warehouse hamburg;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        berlin = new Warehouse(1, "Berlin");
+        hamburg = new Warehouse(2, "Hamburg");
+        product = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+        berlin.addProduct(product, 3);
+        hamburg.addProduct(product, 5);
+    }
+
+    private WarehouseRegistry registry(AllocationPolicy policy) {
+        WarehouseRegistry registry = new WarehouseRegistry(policy);
+        registry.register(berlin);
+        registry.register(hamburg);
+        return registry;
+    }
+
+    @Test
+    void getAvailableStock_ShouldFollowStockChanges() {
+        // Given
+        WarehouseRegistry registry = registry(AllocationPolicy.priority());
+
+        // When
+        berlin.increaseStock(product.id(), 2);
+        hamburg.decreaseStock(product.id(), 5);
+
+        // Then
+        assertEquals(5, registry.getAvailableStock(product.id()));
+        assertEquals(0, registry.getAvailableStock(99));
+    }
+
+    @Test
+    void tryAllocate_WithPriorityPolicy_ShouldSplitInRegistrationOrder() {
+        // Given
+        WarehouseRegistry registry = registry(AllocationPolicy.priority());
+
+        // When
+        List<Allocation> allocations = registry.tryAllocate(product.id(), 4);
+
+        // Then
+        assertEquals(List.of(new Allocation(1, 1, 3), new Allocation(2, 1, 1)), allocations);
+        assertEquals(0, berlin.getStockLevel(product.id()));
+        assertEquals(4, hamburg.getStockLevel(product.id()));
+        assertEquals(4, registry.getAvailableStock(product.id()));
+    }
+
+    @Test
+    void tryAllocate_WithMostStockPolicy_ShouldShipFromOneWarehouseWhenPossible() {
+        // Given
+        WarehouseRegistry registry = registry(AllocationPolicy.mostStock());
+
+        // When
+        List<Allocation> allocations = registry.tryAllocate(product.id(), 4);
+
+        // Then
+        assertEquals(List.of(new Allocation(2, 1, 4)), allocations);
+        assertEquals(3, berlin.getStockLevel(product.id()));
+    }
+
+    @Test
+    void tryAllocate_WithLeastShipmentsPolicy_ShouldAlternateWarehouses() {
+        // Given
+        WarehouseRegistry registry = registry(AllocationPolicy.leastShipments());
+
+        // When
+        List<Allocation> first = registry.tryAllocate(product.id(), 1);
+        List<Allocation> second = registry.tryAllocate(product.id(), 1);
+
+        // Then
+        assertEquals(1, first.get(0).warehouseId());
+        assertEquals(2, second.get(0).warehouseId());
+        assertEquals(1, registry.getShipmentCount(1));
+        assertEquals(1, registry.getShipmentCount(2));
+    }
+
+    @Test
+    void tryAllocate_WithInsufficientTotalStock_ShouldTakeNothing() {
+        // Given
+        WarehouseRegistry registry = registry(AllocationPolicy.priority());
+
+        // When
+        List<Allocation> allocations = registry.tryAllocate(product.id(), 9);
+
+        // Then
+        assertNull(allocations);
+        assertEquals(3, berlin.getStockLevel(product.id()));
+        assertEquals(5, hamburg.getStockLevel(product.id()));
+    }
+
+    @Test
+    void release_ShouldReturnStockToEachWarehouse() {
+        // Given
+        WarehouseRegistry registry = registry(AllocationPolicy.priority());
+        List<Allocation> allocations = registry.tryAllocate(product.id(), 8);
+
+        // When
+        registry.release(allocations);
+
+        // Then
+        assertEquals(3, berlin.getStockLevel(product.id()));
+        assertEquals(5, hamburg.getStockLevel(product.id()));
+        assertEquals(8, registry.getAvailableStock(product.id()));
+    }
+
+    @Test
+    void tryAllocate_UnderContention_ShouldNeverOversell() throws Exception {
+        // Given 1000 units over two warehouses and 8 threads each trying to take 100 times 2 units
+        berlin.updateStock(product.id(), 400);
+        hamburg.updateStock(product.id(), 600);
+        WarehouseRegistry registry = registry(AllocationPolicy.mostStock());
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int taken = 0;
+                for (int i = 0; i < 100; i++) {
+                    if (registry.tryAllocate(product.id(), 2) != null) {
+                        taken += 2;
+                    }
+                }
+                return taken;
+            }));
+        }
+        start.countDown();
+        int totalTaken = 0;
+        for (Future<Integer> result : results) {
+            totalTaken += result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(1000, totalTaken);
+        assertEquals(0, berlin.getStockLevel(product.id()));
+        assertEquals(0, hamburg.getStockLevel(product.id()));
+        assertEquals(0, registry.getAvailableStock(product.id()));
+    }
+}
@@ -0,0 +1,85 @@
+package org.stefanneuberger.warehouse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stefanneuberger.productRepo.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarehouseTest {
+
+    private Warehouse warehouse;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = new Warehouse(1, "Main Warehouse");
+        product = new Product(1, "Wireless Mouse", new BigDecimal("29.99"));
+        warehouse.addProduct(product, 10);
+    }
+
+    @Test
+    void tryDecreaseStock_WithEnoughStock_ShouldDecrease() {
+        assertTrue(warehouse.tryDecreaseStock(product.id(), 4));
+        assertEquals(6, warehouse.getStockLevel(product.id()));
+    }
+
+    @Test
+    void tryDecreaseStock_WithInsufficientStock_ShouldLeaveStockUntouched() {
+        assertFalse(warehouse.tryDecreaseStock(product.id(), 11));
+        assertEquals(10, warehouse.getStockLevel(product.id()));
+    }
+
+    @Test
+    void decreaseStock_WithInsufficientStock_ShouldThrowException() {
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> warehouse.decreaseStock(product.id(), 11)
+        );
+        assertEquals("Insufficient stock", exception.getMessage());
+    }
+
+    @Test
+    void tryDecreaseStock_UnderContention_ShouldNeverOversell() throws Exception {
+        // Given 1000 units and 8 threads each trying to take 200 single units
+        warehouse.updateStock(product.id(), 1000);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int taken = 0;
+                for (int i = 0; i < 200; i++) {
+                    if (warehouse.tryDecreaseStock(product.id(), 1)) {
+                        taken++;
+                    }
+                }
+                return taken;
+            }));
+        }
+        start.countDown();
+        int totalTaken = 0;
+        for (Future<Integer> result : results) {
+            totalTaken += result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(1000, totalTaken);
+        assertEquals(0, warehouse.getStockLevel(product.id()));
+    }
+}